@@ -0,0 +1,88 @@
+package com.bgauction.userservice.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request execution on a Tomcat-sized platform thread pool (200 threads) with one virtual
+ * thread per request, when every request blocks on a slow DB call. The DB call holds a permit of a
+ * semaphore sized like the Hikari pool ({@code spring.datasource.hikari.maximum-pool-size} of the
+ * virtual-threads profile) for its whole latency, the way a request holds a pooled connection, so the
+ * pool rather than the request threads bounds concurrent DB work. Each invocation handles
+ * {@code requests} concurrent requests, so lower time per batch means higher throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirtualThreadBenchmark {
+
+    private static final int PLATFORM_POOL_SIZE = 200;
+
+    @Param({"1000", "5000"})
+    private int requests;
+
+    @Param({"20"})
+    private int dbLatencyMillis;
+
+    @Param({"50"})
+    private int connectionPoolSize;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ExecutorService executor;
+    private Semaphore connections;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+        connections = new Semaphore(connectionPoolSize, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int handleBatch() throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            int requestId = i;
+            futures.add(executor.submit(() -> slowQuery(requestId)));
+        }
+        int sum = 0;
+        for (Future<Integer> future : futures) {
+            sum += future.get();
+        }
+        return sum;
+    }
+
+    private int slowQuery(int requestId) throws InterruptedException {
+        connections.acquire();
+        try {
+            Thread.sleep(dbLatencyMillis);
+        } finally {
+            connections.release();
+        }
+        return requestId & 1;
+    }
+}
@@ -0,0 +1,138 @@
+package com.bgauction.userservice.logging;
+
+import com.bgauction.userservice.model.entity.Role;
+import com.bgauction.userservice.model.entity.User;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Logging cost added to one user lookup on the request thread. {@code before} is the previous pipeline:
+ * synchronous file appender with location lookup and two INFO lines, the second with the full entity.
+ * {@code after} is the current one: async logger into a JSON rolling file and one compact lookup event,
+ * sampled 1 in 100 by {@link SamplingFilter}. The contended variant shows the appender lock of the old
+ * pipeline. Run with the gc profiler to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingOverheadBenchmark {
+
+    @Param({"before", "after"})
+    private String pipeline;
+
+    private Path logDir;
+    private LoggerContext loggerContext;
+    private Logger log;
+    private User user;
+
+    @Setup
+    public void setUp() throws IOException {
+        // the production setting, so a full ring buffer drops INFO instead of blocking the benchmark threads
+        System.setProperty("log4j2.asyncQueueFullPolicy", "Discard");
+        logDir = Files.createTempDirectory("logging-benchmark");
+        loggerContext = new LoggerContext("logging-benchmark-" + pipeline);
+        loggerContext.start("before".equals(pipeline) ? beforeConfiguration() : afterConfiguration());
+        log = loggerContext.getLogger(LoggingOverheadBenchmark.class.getName());
+        user = User.builder()
+                .id(42L)
+                .username("username42")
+                .password("$2a$10$Lb9/ALyCj7iMVL7y3ojT4uvjVfcYffDwcBz6V2uTc912epmefzQIm")
+                .email("42@email.com")
+                .enabled(true)
+                .role(Role.USER)
+                .firstName("firstname42")
+                .lastName("lastname42")
+                .country("country42")
+                .city("city42")
+                .deliveryInfo("deliveryinfo42")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loggerContext.stop(10, TimeUnit.SECONDS);
+        try (Stream<Path> files = Files.walk(logDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void lookup() {
+        logLookup();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void lookupContended() {
+        logLookup();
+    }
+
+    private void logLookup() {
+        if ("before".equals(pipeline)) {
+            log.info("Trying to find User with id: {}", user.getId());
+            log.info("Found User with id {}: {}", user.getId(), user);
+        } else {
+            log.info(LogMarkers.USER_LOOKUP, "User found: id={}", user.getId());
+        }
+    }
+
+    private Configuration beforeConfiguration() {
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.setConfigurationName("before");
+        builder.add(builder.newAppender("LogFile", "File")
+                .addAttribute("fileName", logDir.resolve("app.log").toString())
+                .addAttribute("append", false)
+                .add(builder.newLayout("PatternLayout")
+                        .addAttribute("pattern", "%d{yyyy-MM-dd HH:mm:ss} %-5p %c{1}:%L - %msg%n")));
+        builder.add(builder.newRootLogger(Level.INFO)
+                .addAttribute("includeLocation", true)
+                .add(builder.newAppenderRef("LogFile")));
+        return builder.build(false);
+    }
+
+    private Configuration afterConfiguration() {
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.setConfigurationName("after");
+        builder.add(builder.newFilter("SamplingFilter", Filter.Result.NEUTRAL, Filter.Result.DENY)
+                .addAttribute("marker", LogMarkers.USER_LOOKUP.getName())
+                .addAttribute("level", "INFO")
+                .addAttribute("rate", 100));
+        builder.add(builder.newAppender("LogFile", "RollingRandomAccessFile")
+                .addAttribute("fileName", logDir.resolve("app.json").toString())
+                .addAttribute("filePattern", logDir.resolve("app-%d{yyyy-MM-dd}-%i.json.gz").toString())
+                .addAttribute("immediateFlush", false)
+                .add(builder.newLayout("JsonTemplateLayout")
+                        .addAttribute("eventTemplateUri", "classpath:EcsLayout.json"))
+                .addComponent(builder.newComponent("Policies")
+                        .addComponent(builder.newComponent("SizeBasedTriggeringPolicy")
+                                .addAttribute("size", "100MB"))));
+        builder.add(builder.newAsyncRootLogger(Level.INFO)
+                .add(builder.newAppenderRef("LogFile")));
+        return builder.build(false);
+    }
+}
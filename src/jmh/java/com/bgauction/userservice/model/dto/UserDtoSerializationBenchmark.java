@@ -0,0 +1,126 @@
+package com.bgauction.userservice.model.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the user responses: a single user and a list as returned by /internal/user, encoded and
+ * decoded as JSON and as CBOR. The serialize benchmarks also report the payloadBytes and payloads counters;
+ * their ratio is the payload size in bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDtoSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int listSize;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ObjectWriter writer;
+    private ObjectReader singleReader;
+    private ObjectReader listReader;
+    private UserDto userDto;
+    private List<UserDto> userDtos;
+    private byte[] singlePayload;
+    private byte[] listPayload;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = "cbor".equals(format) ? new CBORMapper() : new ObjectMapper();
+        writer = mapper.writer();
+        singleReader = mapper.readerFor(UserDtoPayload.class);
+        listReader = mapper.readerFor(new TypeReference<List<UserDtoPayload>>() { });
+        userDto = userDto(1);
+        userDtos = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            userDtos.add(userDto(i));
+        }
+        singlePayload = writer.writeValueAsBytes(userDto);
+        listPayload = writer.writeValueAsBytes(userDtos);
+    }
+
+    @Benchmark
+    public byte[] serializeSingle(PayloadCounters counters) throws IOException {
+        return counters.record(writer.writeValueAsBytes(userDto));
+    }
+
+    @Benchmark
+    public byte[] serializeList(PayloadCounters counters) throws IOException {
+        return counters.record(writer.writeValueAsBytes(userDtos));
+    }
+
+    @Benchmark
+    public Object deserializeSingle() throws IOException {
+        return singleReader.readValue(singlePayload);
+    }
+
+    @Benchmark
+    public Object deserializeList() throws IOException {
+        return listReader.readValue(listPayload);
+    }
+
+    static UserDto userDto(int i) {
+        return UserDto.builder()
+                .id((long) i)
+                .username("username" + i)
+                .email(i + "@email.com")
+                .firstName("firstname" + i)
+                .lastName("lastname" + i)
+                .country("country" + i)
+                .city("city" + i)
+                .deliveryInfo("deliveryinfo" + i)
+                .build();
+    }
+
+    /**
+     * Bytes written by a serialize benchmark. Both counters are aggregated the same way, so their ratio stays the
+     * payload size however JMH sums them over threads and iterations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadCounters {
+
+        public long payloads;
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloads = 0;
+            payloadBytes = 0;
+        }
+
+        byte[] record(byte[] payload) {
+            payloads++;
+            payloadBytes += payload.length;
+            return payload;
+        }
+    }
+
+    /**
+     * Client-side shape of {@link UserDto}, which has no default constructor for Jackson to read into.
+     */
+    public record UserDtoPayload(Long id, String username, String email, String firstName, String lastName,
+                                 String country, String city, String deliveryInfo) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.bgauction.userservice.model.mapper;
+
+import com.bgauction.userservice.model.dto.RegisterUserDto;
+import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.entity.Role;
+import com.bgauction.userservice.model.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+
+    private UserMapper userMapper;
+    private User user;
+    private UserDto userDto;
+    private RegisterUserDto registerUserDto;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapperImpl();
+        user = User.builder()
+                .id(1L)
+                .username("john_doe")
+                .password("$2a$10$Lb9/ALyCj7iMVL7y3ojT4uvjVfcYffDwcBz6V2uTc912epmefzQIm")
+                .email("john.doe@example.com")
+                .enabled(true)
+                .role(Role.USER)
+                .created(LocalDateTime.now())
+                .updated(LocalDateTime.now())
+                .firstName("John")
+                .lastName("Doe")
+                .country("USA")
+                .city("New York")
+                .deliveryInfo("123 Main St")
+                .build();
+        userDto = userMapper.userToUserDto(user);
+        registerUserDto = RegisterUserDto.builder()
+                .username("john_doe")
+                .email("john.doe@example.com")
+                .password("password1")
+                .build();
+    }
+
+    @Benchmark
+    public UserDto userToUserDto() {
+        return userMapper.userToUserDto(user);
+    }
+
+    @Benchmark
+    public User userDtoToUser() {
+        return userMapper.userDtoToUser(userDto);
+    }
+
+    @Benchmark
+    public User registerUserDtoToUser() {
+        return userMapper.UserSavindDtoToUser(registerUserDto);
+    }
+}
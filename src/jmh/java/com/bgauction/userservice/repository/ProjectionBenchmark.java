@@ -0,0 +1,136 @@
+package com.bgauction.userservice.repository;
+
+import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.entity.Role;
+import com.bgauction.userservice.model.entity.User;
+import com.bgauction.userservice.model.mapper.UserMapper;
+import com.bgauction.userservice.model.mapper.UserMapperImpl;
+import com.bgauction.userservice.model.projection.UserView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Managed entities mapped through {@link UserMapper} versus {@link UserView} constructor projections, for one
+ * user and for a list, on H2 in MySQL mode. Each operation runs in its own read-write persistence context,
+ * like the service methods, so the entity path pays for snapshots and the flush-time dirty check.
+ * Run with the gc profiler to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+    private static final String USER_BY_ID = "select u from User u where u.id = :id";
+    private static final String USERS = "select u from User u where u.id <= :last";
+    private static final String VIEW_BY_ID = UserRepository.USER_VIEW + "where u.id = :id";
+    private static final String VIEWS = UserRepository.USER_VIEW + "where u.id <= :last";
+
+    @Param({"1000"})
+    private int listSize;
+
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private EntityManagerFactory entityManagerFactory;
+    private UserMapper userMapper;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:projection;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.bgauction.userservice.model.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        userMapper = new UserMapperImpl();
+
+        inTransaction(entityManager -> {
+            for (int i = 1; i <= listSize; i++) {
+                entityManager.persist(User.builder()
+                        .username("username" + i)
+                        .password("$2a$10$Lb9/ALyCj7iMVL7y3ojT4uvjVfcYffDwcBz6V2uTc912epmefzQIm")
+                        .email(i + "@email.com")
+                        .enabled(true)
+                        .role(Role.USER)
+                        .firstName("firstname" + i)
+                        .lastName("lastname" + i)
+                        .country("country" + i)
+                        .city("city" + i)
+                        .deliveryInfo("deliveryinfo" + i)
+                        .build());
+            }
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        factoryBean.destroy();
+    }
+
+    @Benchmark
+    public UserDto singleEntity() {
+        return inTransaction(entityManager -> userMapper.userToUserDto(entityManager
+                .createQuery(USER_BY_ID, User.class)
+                .setParameter("id", 1L)
+                .getSingleResult()));
+    }
+
+    @Benchmark
+    public UserDto singleView() {
+        return inTransaction(entityManager -> userMapper.userViewToUserDto(entityManager
+                .createQuery(VIEW_BY_ID, UserView.class)
+                .setParameter("id", 1L)
+                .getSingleResult()));
+    }
+
+    @Benchmark
+    public List<UserDto> listEntities() {
+        return inTransaction(entityManager -> entityManager
+                .createQuery(USERS, User.class)
+                .setParameter("last", (long) listSize)
+                .getResultStream()
+                .map(userMapper::userToUserDto)
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserDto> listViews() {
+        return inTransaction(entityManager -> entityManager
+                .createQuery(VIEWS, UserView.class)
+                .setParameter("last", (long) listSize)
+                .getResultStream()
+                .map(userMapper::userViewToUserDto)
+                .toList());
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            T result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bgauction.userservice.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash and verify cost per BCrypt strength, to pick password-encoder.target-hash-time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BCryptStrengthBenchmark {
+
+    @Param({"8", "10", "12", "14"})
+    private int strength;
+
+    private CalibratedBCryptPasswordEncoder encoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        encoder = new CalibratedBCryptPasswordEncoder(strength);
+        encodedPassword = encoder.encode("password1");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("password1");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("password1", encodedPassword);
+    }
+}
@@ -0,0 +1,45 @@
+package com.bgauction.userservice.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt verification at the strength the service would calibrate on this machine from application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfiguredPasswordVerifyBenchmark {
+
+    private CalibratedBCryptPasswordEncoder encoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        }
+        encoder = CalibratedBCryptPasswordEncoder.calibrate(
+                DurationStyle.detectAndParse(properties.getProperty("password-encoder.target-hash-time")),
+                Integer.parseInt(properties.getProperty("password-encoder.min-strength")),
+                Integer.parseInt(properties.getProperty("password-encoder.max-strength")));
+        encodedPassword = encoder.encode("password1");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return encoder.matches("password1", encodedPassword);
+    }
+}
@@ -0,0 +1,49 @@
+package com.bgauction.userservice.security;
+
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServiceKeyFilterBenchmark {
+
+    private ServiceKeyFilter serviceKeyFilter;
+    private MockHttpServletRequest validRequest;
+    private MockHttpServletRequest invalidRequest;
+
+    @Setup
+    public void setUp() {
+        serviceKeyFilter = new ServiceKeyFilter("gateway-secure-key");
+        validRequest = new MockHttpServletRequest("GET", "/user");
+        validRequest.addHeader("X-Service-Key", "gateway-secure-key");
+        invalidRequest = new MockHttpServletRequest("GET", "/user");
+        invalidRequest.addHeader("X-Service-Key", "wrong-key");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse validKey() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        serviceKeyFilter.doFilterInternal(validRequest, response, new MockFilterChain());
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse invalidKey() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        serviceKeyFilter.doFilterInternal(invalidRequest, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bgauction.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * In-process caches. The caching advice is ordered outside the transaction advice,
+ * so {@code @CacheEvict} runs only after the surrounding transaction has committed.
+ * Hit and miss counters are recorded and published as {@code cache.gets} metrics. Every cache counts its
+ * evictions, see {@link EvictionCountingCache}.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+    public static final String PRINCIPALS_CACHE = "principals";
+    public static final String USER_VERSIONS_CACHE = "userVersions";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.users.maximum-size}") long usersMaximumSize,
+                                     @Value("${cache.users.ttl}") Duration usersTtl,
+                                     @Value("${cache.principals.maximum-size}") long principalsMaximumSize,
+                                     @Value("${cache.principals.ttl}") Duration principalsTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new EvictionCountingCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+                .maximumSize(usersMaximumSize)
+                .expireAfterWrite(usersTtl)
+                .recordStats()
+                .build());
+        // versions back conditional GETs and are evicted together with the users entries
+        cacheManager.registerCustomCache(USER_VERSIONS_CACHE, Caffeine.newBuilder()
+                .maximumSize(usersMaximumSize)
+                .expireAfterWrite(usersTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(PRINCIPALS_CACHE, Caffeine.newBuilder()
+                .maximumSize(principalsMaximumSize)
+                .expireAfterWrite(principalsTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
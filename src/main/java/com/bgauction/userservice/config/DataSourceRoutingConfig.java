@@ -0,0 +1,61 @@
+package com.bgauction.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source when replica URLs are configured: read-only transactions
+ * go to the replicas, everything else to the primary. Replicas share the primary credentials and Hikari settings.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource", name = "replica-urls")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 @Value("${app.datasource.replica-urls}") List<String> replicaUrls,
+                                 @Value("${app.datasource.replica-connection-timeout}") Duration replicaConnectionTimeout,
+                                 @Value("${app.datasource.replica-retry-interval}") Duration replicaRetryInterval,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = createPool(properties, properties.determineUrl(), environment);
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = createPool(properties, replicaUrls.get(i).trim(), environment);
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            // the primary is instrumented by the actuator, replicas are hidden behind the routing proxy
+            meterRegistry.ifAvailable(registry ->
+                    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        return ReplicaRoutingDataSource.readWriteSplitting(primary, replicas, replicaRetryInterval);
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties properties, String url, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+}
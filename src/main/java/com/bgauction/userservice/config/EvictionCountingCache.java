@@ -0,0 +1,51 @@
+package com.bgauction.userservice.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caffeine cache that counts its evictions, whichever path they come from: {@code @CacheEvict} or
+ * {@link com.bgauction.userservice.service.impl.UserCacheEvictor}. Code that loads rows itself and then puts
+ * them reads the count before the load and again after the puts; a changed count means an eviction may have
+ * run between the two and the puts have to be undone.
+ */
+public class EvictionCountingCache extends CaffeineCache {
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EvictionCountingCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                 boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    // counted before removing, so a reader that sees the old count knows the removal is still to come
+
+    @Override
+    public void evict(Object key) {
+        evictions.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        evictions.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        evictions.incrementAndGet();
+        return super.invalidate();
+    }
+}
@@ -0,0 +1,84 @@
+package com.bgauction.userservice.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out replica connections round-robin. A replica that fails to connect is skipped for the retry interval,
+ * and when no replica is available the connection comes from the primary, so reads degrade to the primary
+ * instead of failing.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final List<DataSource> replicas;
+    private final DataSource primary;
+    private final long retryIntervalNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray unavailableUntil;
+
+    public ReplicaRoutingDataSource(List<DataSource> replicas, DataSource primary, Duration retryInterval) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.unavailableUntil = new AtomicLongArray(replicas.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            unavailableUntil.set(i, now);
+        }
+    }
+
+    /**
+     * Returns a data source that sends connections of read-only transactions to the replicas and all others
+     * to the primary. The target connection is fetched lazily, at the first statement, after the transaction
+     * manager has marked it read-only.
+     */
+    public static DataSource readWriteSplitting(DataSource primary, List<DataSource> replicas, Duration retryInterval) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(replicas, primary, retryInterval));
+        return dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionOpener opener) throws SQLException {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            long now = System.nanoTime();
+            if (now - unavailableUntil.get(index) < 0) {
+                continue;
+            }
+            try {
+                return opener.open(replicas.get(index));
+            } catch (SQLException ex) {
+                unavailableUntil.set(index, now + retryIntervalNanos);
+                log.warn("Replica {} is unavailable, skipping it for {} ms: {}",
+                        index, retryIntervalNanos / 1_000_000, ex.getMessage());
+            }
+        }
+        return opener.open(primary);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+}
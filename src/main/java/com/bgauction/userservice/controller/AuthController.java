@@ -2,30 +2,38 @@ package com.bgauction.userservice.controller;
 
 import com.bgauction.userservice.exceptionHandler.ErrorsResponse;
 import com.bgauction.userservice.model.dto.LoginUserDto;
+import com.bgauction.userservice.model.dto.RefreshTokenDto;
 import com.bgauction.userservice.model.dto.RegisterUserDto;
 import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.security.AuthRateLimiter;
 import com.bgauction.userservice.security.JwtUtil;
 import com.bgauction.userservice.security.UserDetailsImpl;
+import com.bgauction.userservice.service.EmailAvailabilityService;
+import com.bgauction.userservice.service.RefreshTokenService;
 import com.bgauction.userservice.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
@@ -34,13 +42,30 @@ import java.util.Map;
 @Log4j2
 @RestController
 @Tag(name = "User API", description = "Operations related to Users")
-@RequiredArgsConstructor
 @RequestMapping("/auth")
 public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final EmailAvailabilityService emailAvailabilityService;
+    private final AuthRateLimiter authRateLimiter;
+    private final Counter loginSuccess;
+    private final Counter loginFailure;
+
+    public AuthController(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserService userService,
+                          RefreshTokenService refreshTokenService, EmailAvailabilityService emailAvailabilityService,
+                          AuthRateLimiter authRateLimiter, MeterRegistry meterRegistry) {
+        this.authenticationManager = authenticationManager;
+        this.jwtUtil = jwtUtil;
+        this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
+        this.emailAvailabilityService = emailAvailabilityService;
+        this.authRateLimiter = authRateLimiter;
+        this.loginSuccess = Counter.builder("auth.login").tag("result", "success").register(meterRegistry);
+        this.loginFailure = Counter.builder("auth.login").tag("result", "failure").register(meterRegistry);
+    }
 
     @Operation(summary = "Register new user", description = "Returns saved new user")
     @ApiResponses(value = {
@@ -49,28 +74,57 @@ public class AuthController {
                     content = @Content(mediaType = "application/json",
                         schema = @Schema(implementation = ErrorsResponse.class))),
             @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
-            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content()),
+            @ApiResponse(responseCode = "429", description = "Too many requests from the client or for the email",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
     })
     @PostMapping("/register")
-    public ResponseEntity<UserDto> register(@Valid @RequestBody RegisterUserDto userDto) {
+    public ResponseEntity<UserDto> register(@Valid @RequestBody RegisterUserDto userDto, HttpServletRequest request) {
+        authRateLimiter.checkIpAndEmail(AuthRateLimiter.REGISTER, request.getRemoteAddr(), userDto.getEmail());
         UserDto savedUserDto = userService.saveNewUser(userDto);
         return new ResponseEntity<>(savedUserDto, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Login user", description = "Login user")
+    @Operation(summary = "Check email availability", description = "Returns whether the email can be used for registration")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability is checked successfully"),
+            @ApiResponse(responseCode = "429", description = "Too many requests from the client",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
+    })
+    @GetMapping("/email-available")
+    public ResponseEntity<Map<String, Boolean>> isEmailAvailable(@RequestParam("email") String email,
+                                                                 HttpServletRequest request) {
+        // limited per client only, it is an email enumeration oracle
+        authRateLimiter.checkIp(AuthRateLimiter.EMAIL_AVAILABLE, request.getRemoteAddr());
+        return ResponseEntity.ok(Map.of("available", emailAvailabilityService.isEmailAvailable(email)));
+    }
+
+    @Operation(summary = "Login user", description = "Returns a short-lived access token and a refresh token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully login"),
             @ApiResponse(responseCode = "400", description = "Invalid input data",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorsResponse.class))),
             @ApiResponse(responseCode = "401", description = "Bad credentials", content = @Content()),
-            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content()),
+            @ApiResponse(responseCode = "429", description = "Too many requests from the client or for the email",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
     })
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginUserDto userDto) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(userDto.getEmail(), userDto.getPassword()));
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+    public ResponseEntity<?> login(@Valid @RequestBody LoginUserDto userDto, HttpServletRequest request) {
+        authRateLimiter.checkIpAndEmail(AuthRateLimiter.LOGIN, request.getRemoteAddr(), userDto.getEmail());
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(userDto.getEmail(), userDto.getPassword()));
+        } catch (AuthenticationException ex) {
+            loginFailure.increment();
+            throw ex;
+        }
+        loginSuccess.increment();
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         Long userId = ((UserDetailsImpl) userDetails).getId();
@@ -80,8 +134,43 @@ public class AuthController {
         String jwt = jwtUtil.generateToken(userId, email, role);
         Map<String, String> token = new HashMap<>();
         token.put("token", jwt);
+        token.put("refreshToken", refreshTokenService.issueRefreshToken((UserDetailsImpl) userDetails));
         log.info("Successfully login User with email {}", userDto.getEmail());
         return ResponseEntity.ok(token);
     }
 
+    @Operation(summary = "Refresh access token", description = "Returns a new access token for a valid refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Access token is issued"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token is invalid, expired or revoked",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+        String jwt = refreshTokenService.refreshAccessToken(refreshTokenDto.getRefreshToken());
+        Map<String, String> token = new HashMap<>();
+        token.put("token", jwt);
+        return ResponseEntity.ok(token);
+    }
+
+    @Operation(summary = "Logout user", description = "Revokes the refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Refresh token is revoked"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token is invalid or expired",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+        refreshTokenService.revoke(refreshTokenDto.getRefreshToken());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
 }
@@ -1,8 +1,21 @@
 package com.bgauction.userservice.controller;
 
 import com.bgauction.userservice.exception.InvalidIdException;
+import com.bgauction.userservice.exception.InvalidPageRequestException;
 import com.bgauction.userservice.exceptionHandler.ErrorsResponse;
+import com.bgauction.userservice.model.dto.CursorPageDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserBatchRequestDto;
+import com.bgauction.userservice.model.dto.UserChangesDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchRequestDto;
 import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.dto.UserImportResultDto;
+import com.bgauction.userservice.model.dto.UserPatchDto;
+import com.bgauction.userservice.model.dto.UserSummaryDto;
+import com.bgauction.userservice.security.JwtUserPrincipal;
+import com.bgauction.userservice.service.UserChangeFeedService;
+import com.bgauction.userservice.service.UserImportService;
 import com.bgauction.userservice.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.headers.Header;
@@ -11,23 +24,36 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.security.Principal;
-import java.util.List;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
 
 @Log4j2
 @RestController
@@ -36,23 +62,126 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserChangeFeedService userChangeFeedService;
 
-    @Operation(summary = "Get user's list", description = "Returns a list of all users (empty list is available)")
+    @Value("${user.list.default-limit}")
+    private int defaultListLimit;
+
+    @Value("${user.list.max-limit}")
+    private int maxListLimit;
+
+    @Value("${user.list.unpaged-enabled}")
+    private boolean unpagedListEnabled;
+
+    @Value("${user.changes.poll-timeout}")
+    private Duration changesPollTimeout;
+
+    @Operation(summary = "Get user's list",
+            description = "Returns a page of users ordered by id. Pass nextCursor as 'after' to get the next page. " +
+                    "With unpaged=true returns a list of all users, if enabled for the deployment")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "User list is successfully found"),
+            @ApiResponse(responseCode = "200", description = "User page is successfully found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page request",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
             @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
             @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
     })
     @GetMapping("/internal/user")
-    public List<UserDto> getAllUserList() {
-        return userService.findAllUsers();
+    public ResponseEntity<?> getAllUserList(@RequestParam(value = "limit", required = false) Integer limit,
+                                            @RequestParam(value = "after", required = false) String after,
+                                            @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged) {
+        if (unpaged) {
+            if (!unpagedListEnabled) {
+                throw new InvalidPageRequestException("Unpaged user list is disabled");
+            }
+            return new ResponseEntity<>(userService.findAllUsers(), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(userService.findUsersPage(after, resolvePageSize(limit)), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Search users by location",
+            description = "Returns a page of users in the country, and the city if given, ordered by id. " +
+                    "Pass nextCursor as 'after' to get the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User page is successfully found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page request",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
+    })
+    @GetMapping("/internal/user/search")
+    public ResponseEntity<CursorPageDto<UserSummaryDto>> searchUsers(
+            @RequestParam(value = "country", required = false) String country,
+            @RequestParam(value = "city", required = false) String city,
+            @RequestParam(value = "enabled", defaultValue = "true") boolean enabled,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after) {
+        if (country == null || country.isBlank()) {
+            throw new InvalidPageRequestException("Country must not be blank");
+        }
+        CursorPageDto<UserSummaryDto> page = userService.searchUsers(country, city, enabled, after, resolvePageSize(limit));
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get user changes",
+            description = "Returns the latest change of each user changed after the 'since' cursor. " +
+                    "Without 'since' returns only a starting cursor: take it, load all users, " +
+                    "then follow the changes. " +
+                    "When there are no changes the request waits for them up to the poll timeout")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes are found, or the poll timed out without any",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserChangesDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page request",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "410", description = "Changes after the cursor are compacted",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
+    })
+    @GetMapping("/internal/user/changes")
+    public DeferredResult<ResponseEntity<UserChangesDto>> getUserChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "wait", defaultValue = "true") boolean wait) {
+        int pageSize = resolvePageSize(limit);
+        UserChangesDto changes = userChangeFeedService.findChanges(since, pageSize);
+        // the timeout result is the empty page, with the cursor unchanged
+        DeferredResult<ResponseEntity<UserChangesDto>> result =
+                new DeferredResult<>(changesPollTimeout.toMillis(), new ResponseEntity<>(changes, HttpStatus.OK));
+        if (since == null || !wait || !changes.getChanges().isEmpty()) {
+            result.setResult(new ResponseEntity<>(changes, HttpStatus.OK));
+            return result;
+        }
+        CompletableFuture<UserChangesDto> pending = userChangeFeedService.awaitChanges(since, pageSize);
+        pending.whenComplete((found, ex) -> {
+            if (ex == null) {
+                result.setResult(new ResponseEntity<>(found, HttpStatus.OK));
+            } else {
+                result.setErrorResult(ex);
+            }
+        });
+        result.onCompletion(() -> pending.cancel(false));
+        return result;
     }
 
-    @Operation(summary = "Get user by ID", description = "Returns a user by ID")
+    @Operation(summary = "Get user by ID",
+            description = "Returns a user by ID with an ETag. " +
+                    "Send it back in If-None-Match to get 304 while the user is unchanged")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User is successfully found by id",
+                    headers = {@Header(name = "ETag",
+                            description = "Weak version of the user, shared by the JSON and CBOR responses")},
                     content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "304", description = "User is not modified", content = @Content()),
             @ApiResponse(responseCode = "400", description = "Invalid input data",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorsResponse.class))),
@@ -64,15 +193,40 @@ public class UserController {
     })
     @GetMapping({"/user/{id}", "/internal/user/{id}"})
     public ResponseEntity<?> getUserById(@PathVariable Long id,
-                                         @RequestHeader(value = "X-User-Id", required = false) Long userId) {
+                                         @AuthenticationPrincipal JwtUserPrincipal principal,
+                                         WebRequest webRequest) {
         if (id <= 0) {
             throw new InvalidIdException("Id must be greater than 0");
         }
-        if (userId != null && !id.equals(userId)) {
+        if (principal != null && !id.equals(principal.id())) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
         }
+        // revalidate on every use; profiles hold personal data, so shared caches must not store them
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        String etag = userEtag(id, userService.findUserVersion(id));
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
         UserDto userDto = userService.findUserById(id);
-        return new ResponseEntity<>(userDto, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).body(userDto);
+    }
+
+    @Operation(summary = "Get users by IDs", description = "Returns found users and the list of IDs that are not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users are looked up successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserBatchDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
+    })
+    @PostMapping("/internal/user/batch")
+    public ResponseEntity<UserBatchDto> getUsersByIds(@Valid @RequestBody UserBatchRequestDto requestDto) {
+        UserBatchDto userBatchDto = userService.findUsersByIds(requestDto.getIds());
+        return new ResponseEntity<>(userBatchDto, HttpStatus.OK);
     }
 
     @Operation(summary = "Update user by ID", description = "Returns URI with location")
@@ -91,14 +245,14 @@ public class UserController {
     @PutMapping("/user/{id}")
     public ResponseEntity<?> updateUser(@PathVariable Long id,
                                         @Valid @RequestBody UserDto userDto,
-                                        @RequestHeader(value = "X-User-Id") Long userId) {
+                                        @AuthenticationPrincipal JwtUserPrincipal principal) {
         if (id <= 0) {
             throw new InvalidIdException("Path variable id must be greater than 0");
         }
         if (!id.equals(userDto.getId())) {
             throw new InvalidIdException("Path variable id is not equal to User id");
         }
-        if (!id.equals(userId)) {
+        if (!id.equals(principal.id())) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
         }
         userService.updateUser(userDto);
@@ -111,6 +265,40 @@ public class UserController {
         return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
     }
 
+    @Operation(summary = "Partially update user by ID",
+            description = "Updates only the supplied fields, omitted or null fields are left unchanged. Returns URI with location")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "User is updated successfully",
+                    headers = {@Header(name = "Location", description = "URI of the updated user")}),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content()),
+            @ApiResponse(responseCode = "404", description = "User is not found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class)))
+    })
+    @PatchMapping("/user/{id}")
+    public ResponseEntity<?> patchUser(@PathVariable Long id,
+                                       @Valid @RequestBody UserPatchDto patchDto,
+                                       @AuthenticationPrincipal JwtUserPrincipal principal) {
+        if (id <= 0) {
+            throw new InvalidIdException("Path variable id must be greater than 0");
+        }
+        if (!id.equals(principal.id())) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        userService.patchUser(id, patchDto);
+        String locationUrl = ServletUriComponentsBuilder
+                .fromCurrentRequestUri()
+                .buildAndExpand(id)
+                .toUriString();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Location", locationUrl);
+        return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
+    }
+
     @Operation(summary = "Delete user by id", description = "Deletes user by id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "User is deleted successfully"),
@@ -132,4 +320,53 @@ public class UserController {
         userService.deleteUserById(id, email);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    @Operation(summary = "Delete users by IDs",
+            description = "Deletes users in one transaction. Returns deleted IDs and the list of IDs that are not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users are deleted successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserDeleteBatchDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
+    })
+    @PostMapping("/internal/user/delete-batch")
+    public ResponseEntity<UserDeleteBatchDto> deleteUsers(@Valid @RequestBody UserDeleteBatchRequestDto requestDto) {
+        UserDeleteBatchDto userDeleteBatchDto = userService.deleteUsersByIds(requestDto.getIds());
+        return new ResponseEntity<>(userDeleteBatchDto, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Import users",
+            description = "Streams newline-delimited JSON users into the database. Each line holds one user with " +
+                    "either a raw password or a BCrypt passwordHash. Invalid lines are reported and skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import is finished",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserImportResultDto.class))),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized", content = @Content()),
+            @ApiResponse(responseCode = "403", description = "Access is forbidden", content = @Content())
+    })
+    @PostMapping(value = "/internal/user/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl"})
+    public ResponseEntity<UserImportResultDto> importUsers(HttpServletRequest request) throws IOException {
+        // read from the request stream, so the body is never buffered whole
+        UserImportResultDto result = userImportService.importUsers(request.getInputStream());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    private int resolvePageSize(Integer limit) {
+        int pageSize = limit == null ? defaultListLimit : limit;
+        if (pageSize <= 0 || pageSize > maxListLimit) {
+            throw new InvalidPageRequestException("Limit must be between 1 and " + maxListLimit);
+        }
+        return pageSize;
+    }
+
+    // weak, because the JSON and CBOR representations of one version share it
+    private static String userEtag(Long id, LocalDateTime updated) {
+        long updatedMicros = updated.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updated.getNano() / 1_000;
+        return "W/\"" + id + "-" + Long.toHexString(updatedMicros) + "\"";
+    }
 }
@@ -0,0 +1,7 @@
+package com.bgauction.userservice.exception;
+
+public class ChangeCursorExpiredException extends RuntimeException {
+    public ChangeCursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bgauction.userservice.exception;
+
+public class EmailAlreadyUsedException extends RuntimeException {
+    public EmailAlreadyUsedException(String message) {
+        super(message);
+    }
+}
@@ -1,13 +1,20 @@
 package com.bgauction.userservice.exceptionHandler;
 
+import com.bgauction.userservice.exception.ChangeCursorExpiredException;
+import com.bgauction.userservice.exception.EmailAlreadyUsedException;
 import com.bgauction.userservice.exception.InvalidIdException;
+import com.bgauction.userservice.exception.InvalidPageRequestException;
+import com.bgauction.userservice.exception.InvalidTokenException;
 import com.bgauction.userservice.exception.NotFoundException;
+import com.bgauction.userservice.exception.RateLimitExceededException;
+import com.bgauction.userservice.exception.ServiceOverloadedException;
 import io.jsonwebtoken.JwtException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -43,6 +50,31 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorsResponse, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorsResponse> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        log.warn("Rejecting request: {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("Service overloaded", ex.getMessage());
+        ErrorsResponse errorsResponse = new ErrorsResponse();
+        errorsResponse.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorsResponse.setErrors(errors);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(errorsResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorsResponse> handleRateLimitExceededException(RateLimitExceededException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("Rate limit exceeded", ex.getMessage());
+        ErrorsResponse errorsResponse = new ErrorsResponse();
+        errorsResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        errorsResponse.setErrors(errors);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(errorsResponse, headers, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<?> handleAccessDeniedException(AccessDeniedException ex) {
         return new ResponseEntity<>(HttpStatus.FORBIDDEN);
@@ -53,6 +85,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<ErrorsResponse> handleInvalidTokenException(InvalidTokenException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("Invalid token", ex.getMessage());
+        ErrorsResponse errorsResponse = new ErrorsResponse();
+        errorsResponse.setStatus(HttpStatus.UNAUTHORIZED.value());
+        errorsResponse.setErrors(errors);
+        return new ResponseEntity<>(errorsResponse, HttpStatus.UNAUTHORIZED);
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ErrorsResponse> handleAuthenticationException(AuthenticationException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -73,6 +115,36 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorsResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<ErrorsResponse> handleInvalidPageRequestException(InvalidPageRequestException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("Invalid page request", ex.getMessage());
+        ErrorsResponse errorsResponse = new ErrorsResponse();
+        errorsResponse.setStatus(HttpStatus.BAD_REQUEST.value());
+        errorsResponse.setErrors(errors);
+        return new ResponseEntity<>(errorsResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ChangeCursorExpiredException.class)
+    public ResponseEntity<ErrorsResponse> handleChangeCursorExpiredException(ChangeCursorExpiredException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("Change cursor expired", ex.getMessage());
+        ErrorsResponse errorsResponse = new ErrorsResponse();
+        errorsResponse.setStatus(HttpStatus.GONE.value());
+        errorsResponse.setErrors(errors);
+        return new ResponseEntity<>(errorsResponse, HttpStatus.GONE);
+    }
+
+    @ExceptionHandler(EmailAlreadyUsedException.class)
+    public ResponseEntity<ErrorsResponse> handleEmailAlreadyUsedException(EmailAlreadyUsedException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("email", ex.getMessage());
+        ErrorsResponse errorsResponse = new ErrorsResponse();
+        errorsResponse.setStatus(HttpStatus.BAD_REQUEST.value());
+        errorsResponse.setErrors(errors);
+        return new ResponseEntity<>(errorsResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorsResponse> handleConstraintViolationException(ConstraintViolationException ex) {
         Map<String, String> errors = ex.getConstraintViolations().stream()
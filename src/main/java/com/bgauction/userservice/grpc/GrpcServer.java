@@ -0,0 +1,85 @@
+package com.bgauction.userservice.grpc;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the gRPC server on its own port next to the servlet container. gRPC speaks HTTP/2, so each client keeps
+ * one connection and multiplexes its concurrent calls over it. On shutdown new calls are refused and running
+ * calls get the grace period to finish.
+ */
+@Log4j2
+@Component
+public class GrpcServer implements SmartLifecycle {
+
+    private final UserLookupGrpcService userLookupService;
+    private final ServiceKeyInterceptor serviceKeyInterceptor;
+    private final int port;
+    private final Duration shutdownGracePeriod;
+    private volatile Server server;
+
+    public GrpcServer(UserLookupGrpcService userLookupService,
+                      ServiceKeyInterceptor serviceKeyInterceptor,
+                      @Value("${grpc.server.port}") int port,
+                      @Value("${grpc.server.shutdown-grace-period}") Duration shutdownGracePeriod) {
+        this.userLookupService = userLookupService;
+        this.serviceKeyInterceptor = serviceKeyInterceptor;
+        this.port = port;
+        this.shutdownGracePeriod = shutdownGracePeriod;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+                    .addService(ServerInterceptors.intercept(userLookupService, serviceKeyInterceptor))
+                    .build()
+                    .start();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not start gRPC server on port " + port, ex);
+        }
+        log.info("gRPC server started on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        Server running = server;
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
+        try {
+            if (!running.awaitTermination(shutdownGracePeriod.toMillis(), TimeUnit.MILLISECONDS)) {
+                running.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            running.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+        log.info("gRPC server stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * The port the server is bound to, useful when it is configured as 0.
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
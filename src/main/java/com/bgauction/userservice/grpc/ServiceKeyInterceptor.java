@@ -0,0 +1,41 @@
+package com.bgauction.userservice.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * gRPC counterpart of {@link com.bgauction.userservice.security.ServiceKeyFilter}: calls without the internal
+ * service key in the {@code x-service-key} metadata are closed with {@code PERMISSION_DENIED}.
+ */
+@Component
+public class ServiceKeyInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> SERVICE_KEY = Metadata.Key.of("x-service-key", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final byte[] serviceInternalKey;
+
+    public ServiceKeyInterceptor(@Value("${service.internal-key}") String serviceInternalKey) {
+        this.serviceInternalKey = serviceInternalKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String serviceKey = headers.get(SERVICE_KEY);
+        if (serviceKey == null
+                || !MessageDigest.isEqual(serviceKey.getBytes(StandardCharsets.UTF_8), serviceInternalKey)) {
+            call.close(Status.PERMISSION_DENIED.withDescription("Invalid Service Key"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        return next.startCall(call, headers);
+    }
+}
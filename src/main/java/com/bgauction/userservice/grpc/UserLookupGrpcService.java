@@ -0,0 +1,176 @@
+package com.bgauction.userservice.grpc;
+
+import com.bgauction.userservice.exception.InvalidPageRequestException;
+import com.bgauction.userservice.exception.NotFoundException;
+import com.bgauction.userservice.grpc.proto.BatchGetUsersRequest;
+import com.bgauction.userservice.grpc.proto.BatchGetUsersResponse;
+import com.bgauction.userservice.grpc.proto.GetUserRequest;
+import com.bgauction.userservice.grpc.proto.ListUsersRequest;
+import com.bgauction.userservice.grpc.proto.User;
+import com.bgauction.userservice.grpc.proto.UserLookupGrpc;
+import com.bgauction.userservice.model.dto.CursorPageDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.service.UserService;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * gRPC view of the internal user lookups, served by the same {@link UserService} as the REST endpoints,
+ * so it shares their caches and read routing.
+ */
+@Log4j2
+@Component
+public class UserLookupGrpcService extends UserLookupGrpc.UserLookupImplBase {
+
+    static final int MAX_BATCH_SIZE = 500;
+
+    private final UserService userService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public UserLookupGrpcService(UserService userService,
+                                 @Value("${grpc.list-users.page-size}") int defaultPageSize,
+                                 @Value("${user.list.max-limit}") int maxPageSize) {
+        this.userService = userService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+        if (request.getId() <= 0) {
+            responseObserver.onError(invalidArgument("Id must be greater than 0"));
+            return;
+        }
+        try {
+            responseObserver.onNext(UserProtoMapper.toProto(userService.findUserById(request.getId())));
+            responseObserver.onCompleted();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(toStatus(ex));
+        }
+    }
+
+    @Override
+    public void batchGetUsers(BatchGetUsersRequest request, StreamObserver<BatchGetUsersResponse> responseObserver) {
+        if (request.getIdsCount() == 0 || request.getIdsCount() > MAX_BATCH_SIZE) {
+            responseObserver.onError(invalidArgument("Between 1 and " + MAX_BATCH_SIZE + " ids are required"));
+            return;
+        }
+        if (request.getIdsList().stream().anyMatch(id -> id <= 0)) {
+            responseObserver.onError(invalidArgument("Ids must be greater than 0"));
+            return;
+        }
+        try {
+            UserBatchDto batch = userService.findUsersByIds(request.getIdsList());
+            BatchGetUsersResponse.Builder response = BatchGetUsersResponse.newBuilder()
+                    .addAllMissingIds(batch.getMissingIds());
+            batch.getUsers().forEach(user -> response.addUsers(UserProtoMapper.toProto(user)));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(toStatus(ex));
+        }
+    }
+
+    /**
+     * Streams users page by page, one read-only query per page. Messages are only written while the transport
+     * is ready and writing resumes from the onReady callback, so a slow client holds back the reads instead of
+     * the server buffering the table, and no thread is parked while the client catches up.
+     */
+    @Override
+    public void listUsers(ListUsersRequest request, StreamObserver<User> responseObserver) {
+        if (request.getPageSize() < 0 || request.getPageSize() > maxPageSize) {
+            responseObserver.onError(invalidArgument("Page size must be between 0 and " + maxPageSize));
+            return;
+        }
+        int pageSize = request.getPageSize() > 0 ? request.getPageSize() : defaultPageSize;
+        ServerCallStreamObserver<User> call = (ServerCallStreamObserver<User>) responseObserver;
+        UserListStream stream = new UserListStream(call, Context.current(), request.getAfter(), pageSize);
+        call.setOnReadyHandler(stream::drain);
+        call.setOnCancelHandler(stream::cancel);
+        stream.drain();
+    }
+
+    private static StatusRuntimeException invalidArgument(String message) {
+        return Status.INVALID_ARGUMENT.withDescription(message).asRuntimeException();
+    }
+
+    private static StatusRuntimeException toStatus(RuntimeException ex) {
+        if (ex instanceof NotFoundException) {
+            return Status.NOT_FOUND.withDescription(ex.getMessage()).asRuntimeException();
+        }
+        if (ex instanceof InvalidPageRequestException) {
+            return invalidArgument(ex.getMessage());
+        }
+        log.error("gRPC user lookup failed", ex);
+        return Status.INTERNAL.withDescription("Internal error").asRuntimeException();
+    }
+
+    /**
+     * State of one ListUsers call. gRPC runs the call's callbacks one at a time, so the fields need no locking.
+     * The call context is checked as well as the call itself, because it is cancelled straight from the
+     * transport, while the call only learns about the cancellation once its own callbacks get to run.
+     */
+    private final class UserListStream {
+
+        private final ServerCallStreamObserver<User> call;
+        private final Context context;
+        private final int pageSize;
+        private String cursor;
+        private Iterator<UserDto> pending = Collections.emptyIterator();
+        private boolean lastPage;
+        private boolean done;
+
+        private UserListStream(ServerCallStreamObserver<User> call, Context context, String cursor, int pageSize) {
+            this.call = call;
+            this.context = context;
+            this.cursor = cursor;
+            this.pageSize = pageSize;
+        }
+
+        private void drain() {
+            try {
+                while (!done) {
+                    if (context.isCancelled()) {
+                        cancel();
+                        return;
+                    }
+                    if (!pending.hasNext() && lastPage) {
+                        done = true;
+                        call.onCompleted();
+                    } else if (!call.isReady()) {
+                        // picked up again by the onReady callback
+                        return;
+                    } else if (pending.hasNext()) {
+                        call.onNext(UserProtoMapper.toProto(pending.next()));
+                    } else {
+                        CursorPageDto<UserDto> page = userService.findUsersPage(cursor, pageSize);
+                        pending = page.getItems().iterator();
+                        cursor = page.getNextCursor();
+                        lastPage = cursor == null;
+                    }
+                }
+            } catch (RuntimeException ex) {
+                done = true;
+                call.onError(toStatus(ex));
+            }
+        }
+
+        private void cancel() {
+            if (!done) {
+                done = true;
+                log.info("ListUsers cancelled by the client");
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bgauction.userservice.grpc;
+
+import com.bgauction.userservice.grpc.proto.User;
+import com.bgauction.userservice.model.dto.UserDto;
+
+/**
+ * Converts users to protobuf messages. Protobuf setters reject null, so optional fields are only set when present.
+ */
+final class UserProtoMapper {
+
+    private UserProtoMapper() {
+    }
+
+    static User toProto(UserDto user) {
+        User.Builder builder = User.newBuilder()
+                .setId(user.getId())
+                .setUsername(user.getUsername())
+                .setEmail(user.getEmail());
+        if (user.getFirstName() != null) {
+            builder.setFirstName(user.getFirstName());
+        }
+        if (user.getLastName() != null) {
+            builder.setLastName(user.getLastName());
+        }
+        if (user.getCountry() != null) {
+            builder.setCountry(user.getCountry());
+        }
+        if (user.getCity() != null) {
+            builder.setCity(user.getCity());
+        }
+        if (user.getDeliveryInfo() != null) {
+            builder.setDeliveryInfo(user.getDeliveryInfo());
+        }
+        return builder.build();
+    }
+}
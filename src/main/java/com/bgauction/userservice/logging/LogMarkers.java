@@ -0,0 +1,24 @@
+package com.bgauction.userservice.logging;
+
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+/**
+ * Categories of hot-path log events. {@link SamplingFilter} instances in {@code log4j2.properties} keep only
+ * a fraction of the events of each category.
+ */
+public final class LogMarkers {
+
+    /**
+     * Single user reads: by id and conditional GETs.
+     */
+    public static final Marker USER_LOOKUP = MarkerManager.getMarker("USER_LOOKUP");
+
+    /**
+     * Multi-user reads: batches, pages and searches.
+     */
+    public static final Marker USER_LIST = MarkerManager.getMarker("USER_LIST");
+
+    private LogMarkers() {
+    }
+}
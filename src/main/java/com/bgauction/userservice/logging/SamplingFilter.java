@@ -0,0 +1,140 @@
+package com.bgauction.userservice.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps one in {@code rate} events that carry the marker and are at or below {@code level}, and denies the rest
+ * (the defaults of {@code onMatch} and {@code onMismatch}). More severe events and events without the marker
+ * are left to the other filters. As a context-wide filter it runs before a log event is created, so a dropped
+ * event costs neither allocation nor a slot in the async queue. Every overload is implemented, so no parameter
+ * array is allocated.
+ */
+@Plugin(name = "SamplingFilter", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public final class SamplingFilter extends AbstractFilter {
+
+    private final String markerName;
+    private final Level level;
+    private final int rate;
+
+    private SamplingFilter(String markerName, Level level, int rate, Result onMatch, Result onMismatch) {
+        super(onMatch, onMismatch);
+        this.markerName = markerName;
+        this.level = level;
+        this.rate = rate;
+    }
+
+    @PluginFactory
+    public static SamplingFilter createFilter(@PluginAttribute("marker") String markerName,
+                                              @PluginAttribute(value = "level", defaultString = "INFO") String level,
+                                              @PluginAttribute(value = "rate", defaultInt = 1) int rate,
+                                              @PluginAttribute("onMatch") Result onMatch,
+                                              @PluginAttribute("onMismatch") Result onMismatch) {
+        if (markerName == null || rate < 1) {
+            throw new IllegalArgumentException("SamplingFilter needs a marker and a rate of at least 1");
+        }
+        return new SamplingFilter(markerName, Level.toLevel(level, Level.INFO), rate,
+                onMatch != null ? onMatch : Result.NEUTRAL,
+                onMismatch != null ? onMismatch : Result.DENY);
+    }
+
+    private Result filter(Level eventLevel, Marker marker) {
+        if (marker == null || !eventLevel.isLessSpecificThan(level) || !marker.isInstanceOf(markerName)) {
+            return Result.NEUTRAL;
+        }
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0 ? onMatch : onMismatch;
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        return filter(event.getLevel(), event.getMarker());
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6, Object p7) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {
+        return filter(level, marker);
+    }
+
+    @Override
+    public String toString() {
+        return "SamplingFilter[marker=" + markerName + ", level=" + level + ", rate=1/" + rate + "]";
+    }
+}
@@ -0,0 +1,17 @@
+package com.bgauction.userservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CursorPageDto<T> {
+
+    private List<T> items;
+
+    @Schema(description = "Opaque cursor for the next page, absent on the last page", example = "MTA")
+    private String nextCursor;
+}
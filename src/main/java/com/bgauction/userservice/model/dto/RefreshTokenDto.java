@@ -0,0 +1,19 @@
+package com.bgauction.userservice.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDto {
+
+    @NotBlank
+    @ToString.Exclude
+    private String refreshToken;
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
+import lombok.ToString;
 
 @Data
 @Builder
@@ -16,6 +17,7 @@ public class RegisterUserDto {
 
     @NotBlank
     @Size(min = 8)
+    @ToString.Exclude
     private String password;
 
     @NotBlank
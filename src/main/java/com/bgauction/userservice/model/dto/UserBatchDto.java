@@ -0,0 +1,15 @@
+package com.bgauction.userservice.model.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserBatchDto {
+
+    private List<UserDto> users;
+
+    private List<Long> missingIds;
+}
@@ -0,0 +1,18 @@
+package com.bgauction.userservice.model.dto;
+
+import com.bgauction.userservice.model.entity.UserChangeType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserChangeDto {
+
+    private Long userId;
+
+    private UserChangeType type;
+
+    @Schema(description = "Current state of the user, absent for DELETE")
+    private UserDto user;
+}
@@ -0,0 +1,18 @@
+package com.bgauction.userservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserChangesDto {
+
+    @Schema(description = "Latest change of each user changed after the cursor, in change order")
+    private List<UserChangeDto> changes;
+
+    @Schema(description = "Cursor to pass as 'since' in the next request, always present", example = "MTA")
+    private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.bgauction.userservice.model.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserDeleteBatchDto {
+
+    private List<Long> deletedIds;
+
+    private List<Long> missingIds;
+}
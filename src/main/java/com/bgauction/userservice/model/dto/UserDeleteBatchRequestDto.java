@@ -0,0 +1,23 @@
+package com.bgauction.userservice.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDeleteBatchRequestDto {
+
+    @NotEmpty
+    @Size(max = 10000)
+    private List<@NotNull @Positive Long> ids;
+}
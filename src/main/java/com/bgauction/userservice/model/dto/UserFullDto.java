@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -23,6 +24,7 @@ public class UserFullDto {
 
     @NotBlank
     @Size(min = 8)
+    @ToString.Exclude
     private String password;
 
     @NotBlank
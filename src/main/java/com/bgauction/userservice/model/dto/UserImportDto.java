@@ -0,0 +1,48 @@
+package com.bgauction.userservice.model.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * One line of a user import. Exactly one of {@code password} and {@code passwordHash} (BCrypt) is expected.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportDto {
+
+    @NotBlank
+    @Size(min = 3, max = 25)
+    private String username;
+
+    @NotBlank
+    @Email
+    private String email;
+
+    @Size(min = 8)
+    @ToString.Exclude
+    private String password;
+
+    @ToString.Exclude
+    private String passwordHash;
+
+    @Builder.Default
+    private Boolean enabled = true;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String country;
+
+    private String city;
+
+    private String deliveryInfo;
+}
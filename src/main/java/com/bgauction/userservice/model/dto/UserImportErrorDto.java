@@ -0,0 +1,19 @@
+package com.bgauction.userservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportErrorDto {
+
+    private long line;
+
+    private String email;
+
+    private String message;
+}
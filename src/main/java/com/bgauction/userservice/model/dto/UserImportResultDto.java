@@ -0,0 +1,19 @@
+package com.bgauction.userservice.model.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserImportResultDto {
+
+    private long imported;
+
+    private long failed;
+
+    private List<UserImportErrorDto> errors;
+
+    private boolean errorsTruncated;
+}
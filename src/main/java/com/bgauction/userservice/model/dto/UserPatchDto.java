@@ -0,0 +1,40 @@
+package com.bgauction.userservice.model.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial user update. A {@code null} field is left unchanged.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPatchDto {
+
+    @Size(min = 3, max = 25)
+    private String username;
+
+    @Email
+    @Size(min = 3)
+    private String email;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String country;
+
+    private String city;
+
+    private String deliveryInfo;
+
+    public boolean isEmpty() {
+        return username == null && email == null && firstName == null && lastName == null
+                && country == null && city == null && deliveryInfo == null;
+    }
+}
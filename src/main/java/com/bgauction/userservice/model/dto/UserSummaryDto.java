@@ -0,0 +1,24 @@
+package com.bgauction.userservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columns of a user search hit. All of them are in the search index, so the query never reads the table rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDto {
+
+    private Long id;
+
+    private String username;
+
+    private String country;
+
+    private String city;
+}
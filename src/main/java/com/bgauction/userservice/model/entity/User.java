@@ -45,6 +45,7 @@ public class User {
     @NotBlank
     @Size(min = 8)
     @Column(name = "password")
+    @ToString.Exclude
     private String password;
 
     @NotBlank
@@ -0,0 +1,6 @@
+package com.bgauction.userservice.model.entity;
+
+public enum UserChangeType {
+    UPSERT,
+    DELETE
+}
@@ -3,6 +3,7 @@ package com.bgauction.userservice.model.mapper;
 import com.bgauction.userservice.model.dto.UserDto;
 import com.bgauction.userservice.model.dto.RegisterUserDto;
 import com.bgauction.userservice.model.entity.User;
+import com.bgauction.userservice.model.projection.UserView;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 
@@ -10,5 +11,6 @@ import org.mapstruct.ReportingPolicy;
 public interface UserMapper {
     User userDtoToUser(UserDto dto);
     UserDto userToUserDto(User user);
+    UserDto userViewToUserDto(UserView view);
     User UserSavindDtoToUser(RegisterUserDto dto);
 }
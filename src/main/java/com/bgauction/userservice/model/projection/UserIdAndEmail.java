@@ -0,0 +1,4 @@
+package com.bgauction.userservice.model.projection;
+
+public record UserIdAndEmail(Long id, String email) {
+}
@@ -0,0 +1,15 @@
+package com.bgauction.userservice.model.projection;
+
+/**
+ * Read-only projection of the columns exposed by {@code UserDto}. Selected with a constructor expression,
+ * so no entity is managed or snapshotted, and the password hash is never read.
+ */
+public record UserView(Long id,
+                       String username,
+                       String email,
+                       String firstName,
+                       String lastName,
+                       String country,
+                       String city,
+                       String deliveryInfo) {
+}
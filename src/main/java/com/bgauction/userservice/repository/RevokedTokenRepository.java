@@ -0,0 +1,24 @@
+package com.bgauction.userservice.repository;
+
+import com.bgauction.userservice.model.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("select r.jti from RevokedToken r where r.expiresAt > ?1")
+    List<String> findActiveJtis(LocalDateTime now);
+
+    @Query("select r.jti from RevokedToken r where r.revokedAt >= ?1 and r.expiresAt > ?2")
+    List<String> findJtisRevokedSince(LocalDateTime since, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= ?1")
+    int deleteExpired(LocalDateTime now);
+}
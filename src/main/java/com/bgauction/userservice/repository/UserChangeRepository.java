@@ -0,0 +1,30 @@
+package com.bgauction.userservice.repository;
+
+import com.bgauction.userservice.model.entity.UserChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    List<UserChange> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    Optional<UserChange> findFirstByOrderByIdAsc();
+
+    @Query("select max(c.id) from UserChange c")
+    Optional<Long> findLastId();
+
+    @Query("select max(c.id) from UserChange c where c.changedAt < ?1")
+    Optional<Long> findLastIdChangedBefore(LocalDateTime time);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserChange c where c.id between ?1 and ?2")
+    int deleteByIdBetween(Long fromId, Long toId);
+}
@@ -1,18 +1,75 @@
 package com.bgauction.userservice.repository;
 
+import com.bgauction.userservice.model.dto.UserSummaryDto;
 import com.bgauction.userservice.model.entity.User;
+import com.bgauction.userservice.model.projection.UserIdAndEmail;
+import com.bgauction.userservice.model.projection.UserView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
 
+    boolean existsByEmail(String email);
+
+    List<UserIdAndEmail> findIdAndEmailByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("select u.updated from User u where u.id = ?1")
+    Optional<LocalDateTime> findUpdatedById(Long id);
+
+    @Query("select u.email from User u where u.id = ?1")
+    Optional<String> findEmailById(Long id);
+
+    String USER_VIEW = "select new com.bgauction.userservice.model.projection.UserView(" +
+            "u.id, u.username, u.email, u.firstName, u.lastName, u.country, u.city, u.deliveryInfo) from User u ";
+
+    @Query(USER_VIEW + "where u.id = ?1")
+    Optional<UserView> findViewById(Long id);
+
+    @Query(USER_VIEW + "where u.id in ?1")
+    List<UserView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query(USER_VIEW)
+    List<UserView> findAllViews();
+
+    @Query(USER_VIEW + "where u.id > ?1 order by u.id")
+    List<UserView> findViewsByIdGreaterThan(Long id, Limit limit);
+
+    @Query("select new com.bgauction.userservice.model.dto.UserSummaryDto(u.id, u.username, u.country, u.city) " +
+            "from User u where u.country = ?1 and u.city = ?2 and u.enabled = ?3 and u.id > ?4 order by u.id")
+    List<UserSummaryDto> searchByCountryAndCity(String country, String city, boolean enabled, Long afterId,
+                                                Limit limit);
+
+    @Query("select new com.bgauction.userservice.model.dto.UserSummaryDto(u.id, u.username, u.country, u.city) " +
+            "from User u where u.country = ?1 and u.enabled = ?2 and u.id > ?3 order by u.id")
+    List<UserSummaryDto> searchByCountry(String country, boolean enabled, Long afterId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = ?2 where u.id = ?1")
+    int updatePassword(Long id, String password);
+
     @Transactional
     @Modifying
     @Query("delete from User u where u.id = ?1 and u.email = ?2")
     int deleteByIdAndEmail(Long id, String email);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.bgauction.userservice.model.projection.UserIdAndEmail(u.id, u.email) " +
+            "from User u where u.id in ?1")
+    List<UserIdAndEmail> findIdAndEmailForDelete(Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from User u where u.id in ?1")
+    int deleteAllByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,14 @@
+package com.bgauction.userservice.repository;
+
+import com.bgauction.userservice.model.dto.UserPatchDto;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Updates only the non-null fields of the patch in a single statement, without loading the entity.
+     * Entities already in the persistence context are not refreshed.
+     *
+     * @return number of updated rows, 0 if there is no user with this id
+     */
+    int patchUser(Long id, UserPatchDto patch);
+}
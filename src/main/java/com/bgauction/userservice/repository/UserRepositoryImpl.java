@@ -0,0 +1,41 @@
+package com.bgauction.userservice.repository;
+
+import com.bgauction.userservice.model.dto.UserPatchDto;
+import com.bgauction.userservice.model.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int patchUser(Long id, UserPatchDto patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> root = update.from(User.class);
+        setIfPresent(update, "username", patch.getUsername());
+        setIfPresent(update, "email", patch.getEmail());
+        setIfPresent(update, "firstName", patch.getFirstName());
+        setIfPresent(update, "lastName", patch.getLastName());
+        setIfPresent(update, "country", patch.getCountry());
+        setIfPresent(update, "city", patch.getCity());
+        setIfPresent(update, "deliveryInfo", patch.getDeliveryInfo());
+        // bulk updates bypass @UpdateTimestamp
+        update.set("updated", LocalDateTime.now());
+        update.where(cb.equal(root.get("id"), id));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static void setIfPresent(CriteriaUpdate<User> update, String attribute, Object value) {
+        if (value != null) {
+            update.set(attribute, value);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.bgauction.userservice.security;
+
+import com.bgauction.userservice.exception.RateLimitExceededException;
+import com.bgauction.userservice.util.EmailUtils;
+import com.bgauction.userservice.util.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the auth endpoints per client IP and per email before any BCrypt work is done, so one client or
+ * a stuffing run against one account cannot take every core. Rejections are counted as
+ * {@code auth.rate.limited} by limiter and endpoint.
+ */
+@Log4j2
+@Component
+public class AuthRateLimiter {
+
+    public static final String LOGIN = "login";
+    public static final String REGISTER = "register";
+    public static final String EMAIL_AVAILABLE = "email-available";
+    private static final List<String> ENDPOINTS = List.of(LOGIN, REGISTER, EMAIL_AVAILABLE);
+
+    private final RateLimiter ipLimiter;
+    private final RateLimiter emailLimiter;
+    // registered up front, a flood of rejections must not pay for a registry lookup each
+    private final Map<String, Counter> ipRejections;
+    private final Map<String, Counter> emailRejections;
+
+    public AuthRateLimiter(@Value("${auth.rate-limit.ip.requests-per-minute}") int ipRequestsPerMinute,
+                           @Value("${auth.rate-limit.ip.burst}") int ipBurst,
+                           @Value("${auth.rate-limit.email.requests-per-minute}") int emailRequestsPerMinute,
+                           @Value("${auth.rate-limit.email.burst}") int emailBurst,
+                           MeterRegistry meterRegistry) {
+        this.ipLimiter = new RateLimiter(ipRequestsPerMinute, ipBurst);
+        this.emailLimiter = new RateLimiter(emailRequestsPerMinute, emailBurst);
+        this.ipRejections = rejectionCounters("ip", meterRegistry);
+        this.emailRejections = rejectionCounters("email", meterRegistry);
+        Gauge.builder("auth.rate.limiter.keys", ipLimiter, RateLimiter::size)
+                .tag("limiter", "ip")
+                .register(meterRegistry);
+        Gauge.builder("auth.rate.limiter.keys", emailLimiter, RateLimiter::size)
+                .tag("limiter", "email")
+                .register(meterRegistry);
+    }
+
+    public void checkIp(String endpoint, String ip) {
+        check(ipLimiter, ipRejections, endpoint, ip);
+    }
+
+    /**
+     * Checks the client IP first, so a rejected client does not use up the tokens of the email.
+     */
+    public void checkIpAndEmail(String endpoint, String ip, String email) {
+        check(ipLimiter, ipRejections, endpoint, ip);
+        if (email != null) {
+            check(emailLimiter, emailRejections, endpoint, EmailUtils.normalize(email));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.sweep-interval}")
+    public void evictIdleBuckets() {
+        int evicted = ipLimiter.evictIdle() + emailLimiter.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    private static Map<String, Counter> rejectionCounters(String limiterName, MeterRegistry meterRegistry) {
+        Map<String, Counter> counters = new HashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            counters.put(endpoint, Counter.builder("auth.rate.limited")
+                    .tag("limiter", limiterName)
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry));
+        }
+        return Map.copyOf(counters);
+    }
+
+    private static void check(RateLimiter limiter, Map<String, Counter> rejections, String endpoint, String key) {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            rejections.get(endpoint).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            throw new RateLimitExceededException("Too many requests, retry later", retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.bgauction.userservice.security;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose strength is picked at startup to hit a target hash time on the current CPU.
+ * Stored hashes with a lower strength are reported for upgrade, so the authentication provider
+ * re-encodes them on the next successful login. Stronger hashes are kept, otherwise instances that
+ * calibrated differently would keep rewriting each other's hashes.
+ */
+@Log4j2
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_ROUNDS = 3;
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(2)) < strength;
+    }
+
+    /**
+     * Measures a probe hash and returns the strength in {@code [minStrength, maxStrength]} whose
+     * expected hash time is closest to {@code targetHashTime}. Each strength step doubles the cost.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(Duration targetHashTime, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+        probe.encode("warm-up-password");
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-password");
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        int strength = minStrength;
+        double bestDistance = Double.MAX_VALUE;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            double expectedNanos = bestNanos * Math.pow(2, candidate - PROBE_STRENGTH);
+            double distance = Math.abs(Math.log(expectedNanos / targetHashTime.toNanos()));
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                strength = candidate;
+            }
+        }
+        log.info("Calibrated BCrypt strength {} for target hash time {} ms (strength {} took {} ms)",
+                strength, targetHashTime.toMillis(), PROBE_STRENGTH, bestNanos / 1_000_000.0);
+        return new CalibratedBCryptPasswordEncoder(strength);
+    }
+}
@@ -0,0 +1,111 @@
+package com.bgauction.userservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates requests carrying a bearer access token signed with {@code jwt.secret}.
+ * Verified tokens are cached by signature until they expire, so repeated requests with the same
+ * token skip the HMAC check and the JSON parse. Requests without a valid token continue
+ * unauthenticated and are rejected by the authorization rules where a principal is required.
+ */
+@Log4j2
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, long cacheMaximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            JwtUserPrincipal principal = verify(header.substring(BEARER_PREFIX.length()).trim());
+            if (principal != null) {
+                UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken
+                        .authenticated(principal, null, AuthorityUtils.createAuthorityList(principal.role()));
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private JwtUserPrincipal verify(String token) {
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart < 0) {
+            return null;
+        }
+        String signature = token.substring(signatureStart + 1);
+        VerifiedToken cached = verifiedTokens.getIfPresent(signature);
+        // the signature only vouches for the exact header and payload it was computed over
+        if (cached != null && cached.token().equals(token) && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached.principal();
+        }
+        try {
+            Claims claims = jwtUtil.parseToken(token);
+            String email = claims.get("email", String.class);
+            String role = claims.get("role", String.class);
+            if (claims.getSubject() == null || email == null || role == null || claims.getExpiration() == null
+                    || JwtUtil.REFRESH_TOKEN_TYPE.equals(claims.get(JwtUtil.TOKEN_TYPE_CLAIM))) {
+                return null;
+            }
+            JwtUserPrincipal principal = new JwtUserPrincipal(Long.valueOf(claims.getSubject()), email, role);
+            verifiedTokens.put(signature, new VerifiedToken(token, principal, claims.getExpiration().getTime()));
+            return principal;
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Rejected bearer token: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private record VerifiedToken(String token, JwtUserPrincipal principal, long expiresAtMillis) {
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
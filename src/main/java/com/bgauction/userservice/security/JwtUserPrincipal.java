@@ -0,0 +1,14 @@
+package com.bgauction.userservice.security;
+
+import java.security.Principal;
+
+/**
+ * Caller identity taken from a verified access token.
+ */
+public record JwtUserPrincipal(Long id, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,31 +1,301 @@
 package com.bgauction.userservice.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Component
 public class JwtUtil {
 
+    public static final String TOKEN_TYPE_CLAIM = "token_type";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+    private static final String HMAC_SHA_256 = "HmacSHA256";
+
     private final SecretKey secretKey;
+    private final long accessTokenTtlMillis;
+    private final long refreshTokenTtlMillis;
+    private final JwtParser jwtParser;
+    private final Queue<TokenWriter> tokenWriters = new ConcurrentLinkedQueue<>();
+    private final Timer issueTimer;
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret}") String keyString,
+                   @Value("${jwt.access-token-ttl}") Duration accessTokenTtl,
+                   @Value("${jwt.refresh-token-ttl}") Duration refreshTokenTtl,
+                   ObjectProvider<MeterRegistry> meterRegistry) {
+        this(keyString, accessTokenTtl, refreshTokenTtl, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public JwtUtil(String keyString, Duration accessTokenTtl, Duration refreshTokenTtl) {
+        this(keyString, accessTokenTtl, refreshTokenTtl, new SimpleMeterRegistry());
+    }
 
-    public JwtUtil(@Value("${jwt.secret}") String keyString) {
+    JwtUtil(String keyString, Duration accessTokenTtl, Duration refreshTokenTtl, MeterRegistry meterRegistry) {
         this.secretKey = Keys.hmacShaKeyFor(keyString.getBytes());
+        this.accessTokenTtlMillis = accessTokenTtl.toMillis();
+        this.refreshTokenTtlMillis = refreshTokenTtl.toMillis();
+        this.jwtParser = Jwts.parser().verifyWith(secretKey).build();
+        this.issueTimer = Timer.builder("jwt.issue").description("Access token issuance").register(meterRegistry);
     }
 
+    /**
+     * Verifies the signature and expiration of the token and returns its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseToken(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Issues an HS256 token with the same bytes the jjwt builder would produce, without the builder:
+     * the header is pre-encoded, the payload is written into a reusable buffer and the {@link Mac}
+     * is reused. Writers are pooled rather than thread-local, so virtual threads do not each get a copy.
+     * Every issuance, on login and on refresh, is timed as {@code jwt.issue}.
+     */
     public String generateToken(Long userId, String email, String role) {
-        long expirationTime = 86400000; // 1 day
+        return issueTimer.record(() -> generateToken(userId, email, role, System.currentTimeMillis()));
+    }
+
+    String generateToken(Long userId, String email, String role, long nowMillis) {
+        TokenWriter writer = tokenWriters.poll();
+        if (writer == null) {
+            writer = new TokenWriter(secretKey);
+        }
+        try {
+            return writer.write(userId, email, role, nowMillis / 1000, (nowMillis + accessTokenTtlMillis) / 1000);
+        } finally {
+            tokenWriters.offer(writer);
+        }
+    }
+
+    /**
+     * Reference implementation through the jjwt builder, kept to verify and benchmark the fast path.
+     */
+    String generateTokenWithBuilder(Long userId, String email, String role, long nowMillis) {
         return Jwts.builder()
                 .subject(userId.toString())
                 .claim("email", email)
                 .claim("role", role)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expirationTime))
+                .issuedAt(new Date(nowMillis))
+                .expiration(new Date(nowMillis + accessTokenTtlMillis))
+                .signWith(secretKey, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    /**
+     * Issues a long-lived refresh token. It carries no role, so it is never accepted as an access token.
+     */
+    public String generateRefreshToken(Long userId, String email, String jti) {
+        long nowMillis = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject(userId.toString())
+                .id(jti)
+                .claim("email", email)
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .issuedAt(new Date(nowMillis))
+                .expiration(new Date(nowMillis + refreshTokenTtlMillis))
                 .signWith(secretKey, Jwts.SIG.HS256)
                 .compact();
     }
+
+    private static final class TokenWriter {
+
+        private static final byte[] HEADER = "eyJhbGciOiJIUzI1NiJ9.".getBytes(StandardCharsets.US_ASCII); // {"alg":"HS256"}
+        private static final byte[] BASE64_URL =
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        private final Mac mac;
+        private final byte[] signature;
+        private byte[] json = new byte[256];
+        private int jsonLength;
+        private byte[] token = new byte[512];
+        private int tokenLength;
+
+        private TokenWriter(SecretKey secretKey) {
+            try {
+                this.mac = Mac.getInstance(HMAC_SHA_256);
+                this.mac.init(new SecretKeySpec(secretKey.getEncoded(), HMAC_SHA_256));
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HmacSHA256 is not available", ex);
+            }
+            this.signature = new byte[mac.getMacLength()];
+        }
+
+        private String write(Long userId, String email, String role, long issuedAt, long expiration) {
+            jsonLength = 0;
+            appendAscii("{\"sub\":\"");
+            appendLong(userId);
+            appendAscii("\",\"email\":");
+            appendJsonString(email);
+            appendAscii(",\"role\":");
+            appendJsonString(role);
+            appendAscii(",\"iat\":");
+            appendLong(issuedAt);
+            appendAscii(",\"exp\":");
+            appendLong(expiration);
+            appendJson((byte) '}');
+
+            tokenLength = 0;
+            ensureTokenCapacity(HEADER.length + base64Length(jsonLength) + 1 + base64Length(signature.length));
+            System.arraycopy(HEADER, 0, token, 0, HEADER.length);
+            tokenLength = HEADER.length;
+            appendBase64Url(json, jsonLength);
+
+            mac.update(token, 0, tokenLength);
+            try {
+                mac.doFinal(signature, 0);
+            } catch (ShortBufferException ex) {
+                throw new IllegalStateException(ex);
+            }
+            token[tokenLength++] = '.';
+            appendBase64Url(signature, signature.length);
+            return new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+        }
+
+        private void appendAscii(String value) {
+            ensureJsonCapacity(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                json[jsonLength++] = (byte) value.charAt(i);
+            }
+        }
+
+        private void appendLong(long value) {
+            if (value < 0) {
+                appendJson((byte) '-');
+                value = -value;
+            }
+            ensureJsonCapacity(20);
+            int start = jsonLength;
+            do {
+                json[jsonLength++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            for (int i = start, j = jsonLength - 1; i < j; i++, j--) {
+                byte tmp = json[i];
+                json[i] = json[j];
+                json[j] = tmp;
+            }
+        }
+
+        /**
+         * Writes a quoted JSON string as UTF-8, escaping the same characters as Jackson's default output.
+         */
+        private void appendJsonString(String value) {
+            if (value == null) {
+                appendAscii("null");
+                return;
+            }
+            ensureJsonCapacity(value.length() * 6 + 2);
+            json[jsonLength++] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json[jsonLength++] = '\\';
+                    json[jsonLength++] = (byte) c;
+                } else if (c < 0x20) {
+                    appendControlChar(c);
+                } else if (c < 0x80) {
+                    json[jsonLength++] = (byte) c;
+                } else if (c < 0x800) {
+                    json[jsonLength++] = (byte) (0xc0 | (c >> 6));
+                    json[jsonLength++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    json[jsonLength++] = (byte) (0xf0 | (codePoint >> 18));
+                    json[jsonLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    json[jsonLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    json[jsonLength++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    json[jsonLength++] = (byte) (0xe0 | (c >> 12));
+                    json[jsonLength++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    json[jsonLength++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            json[jsonLength++] = '"';
+        }
+
+        private void appendControlChar(char c) {
+            json[jsonLength++] = '\\';
+            switch (c) {
+                case '\b' -> json[jsonLength++] = 'b';
+                case '\t' -> json[jsonLength++] = 't';
+                case '\n' -> json[jsonLength++] = 'n';
+                case '\f' -> json[jsonLength++] = 'f';
+                case '\r' -> json[jsonLength++] = 'r';
+                default -> {
+                    json[jsonLength++] = 'u';
+                    json[jsonLength++] = '0';
+                    json[jsonLength++] = '0';
+                    json[jsonLength++] = HEX[c >> 4];
+                    json[jsonLength++] = HEX[c & 0xf];
+                }
+            }
+        }
+
+        private void appendJson(byte b) {
+            ensureJsonCapacity(1);
+            json[jsonLength++] = b;
+        }
+
+        private void appendBase64Url(byte[] src, int length) {
+            int i = 0;
+            for (; i + 3 <= length; i += 3) {
+                int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+                token[tokenLength++] = BASE64_URL[bits >>> 18];
+                token[tokenLength++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                token[tokenLength++] = BASE64_URL[(bits >>> 6) & 0x3f];
+                token[tokenLength++] = BASE64_URL[bits & 0x3f];
+            }
+            int remaining = length - i;
+            if (remaining == 1) {
+                int bits = (src[i] & 0xff) << 16;
+                token[tokenLength++] = BASE64_URL[bits >>> 18];
+                token[tokenLength++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            } else if (remaining == 2) {
+                int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+                token[tokenLength++] = BASE64_URL[bits >>> 18];
+                token[tokenLength++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                token[tokenLength++] = BASE64_URL[(bits >>> 6) & 0x3f];
+            }
+        }
+
+        private static int base64Length(int length) {
+            return (length * 4 + 2) / 3;
+        }
+
+        private void ensureJsonCapacity(int extra) {
+            if (jsonLength + extra > json.length) {
+                json = Arrays.copyOf(json, Math.max(json.length * 2, jsonLength + extra));
+            }
+        }
+
+        private void ensureTokenCapacity(int length) {
+            if (length > token.length) {
+                token = Arrays.copyOf(token, Math.max(token.length * 2, length));
+            }
+        }
+    }
 }
@@ -1,14 +1,22 @@
 package com.bgauction.userservice.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
@@ -20,15 +28,34 @@ public class SpringSecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${password-encoder.pool-size}") int poolSize,
+                                           @Value("${password-encoder.queue-capacity}") int queueCapacity,
+                                           @Value("${password-encoder.retry-after}") Duration retryAfter,
+                                           @Value("${password-encoder.target-hash-time}") Duration targetHashTime,
+                                           @Value("${password-encoder.min-strength}") int minStrength,
+                                           @Value("${password-encoder.max-strength}") int maxStrength,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        CalibratedBCryptPasswordEncoder bCryptEncoder =
+                CalibratedBCryptPasswordEncoder.calibrate(targetHashTime, minStrength, maxStrength);
+        return new BoundedPasswordEncoder(bCryptEncoder, threads, queueCapacity, retryAfter,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtil jwtUtil,
+                                                   @Value("${jwt.verified-cache.maximum-size}") long verifiedTokenCacheSize)
+            throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, verifiedTokenCacheSize),
+                        UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers("/user/**").authenticated()
+                        .requestMatchers(HttpMethod.DELETE, "/internal/user/*").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/internal/user/delete-batch", "/internal/user/import")
+                        .hasAuthority("ADMIN")
                         .anyRequest().permitAll()
                 );
         return http.build();
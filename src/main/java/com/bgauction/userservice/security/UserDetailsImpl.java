@@ -20,6 +20,17 @@ public class UserDetailsImpl implements UserDetails {
         this.password = user.getPassword();
     }
 
+    private UserDetailsImpl(Long id, String email, String password, String role) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+    }
+
+    public UserDetailsImpl withPassword(String password) {
+        return new UserDetailsImpl(id, email, password, role);
+    }
+
     @Override
     public String getUsername() {
         return email;
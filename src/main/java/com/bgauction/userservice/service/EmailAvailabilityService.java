@@ -0,0 +1,6 @@
+package com.bgauction.userservice.service;
+
+public interface EmailAvailabilityService {
+    boolean isEmailAvailable(String email);
+    void registerEmail(String email);
+}
@@ -0,0 +1,9 @@
+package com.bgauction.userservice.service;
+
+import com.bgauction.userservice.security.UserDetailsImpl;
+
+public interface RefreshTokenService {
+    String issueRefreshToken(UserDetailsImpl user);
+    String refreshAccessToken(String refreshToken);
+    void revoke(String refreshToken);
+}
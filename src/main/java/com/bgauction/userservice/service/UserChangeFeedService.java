@@ -0,0 +1,10 @@
+package com.bgauction.userservice.service;
+
+import com.bgauction.userservice.model.dto.UserChangesDto;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface UserChangeFeedService {
+    UserChangesDto findChanges(String since, int limit);
+    CompletableFuture<UserChangesDto> awaitChanges(String since, int limit);
+}
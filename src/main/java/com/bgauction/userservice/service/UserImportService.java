@@ -0,0 +1,10 @@
+package com.bgauction.userservice.service;
+
+import com.bgauction.userservice.model.dto.UserImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+    UserImportResultDto importUsers(InputStream ndjson) throws IOException;
+}
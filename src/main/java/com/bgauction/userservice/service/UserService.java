@@ -1,14 +1,27 @@
 package com.bgauction.userservice.service;
 
+import com.bgauction.userservice.model.dto.CursorPageDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchDto;
 import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.dto.UserPatchDto;
+import com.bgauction.userservice.model.dto.UserSummaryDto;
 import com.bgauction.userservice.model.dto.RegisterUserDto;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface UserService {
     UserDto findUserById(Long id);
+    LocalDateTime findUserVersion(Long id);
+    UserBatchDto findUsersByIds(Collection<Long> ids);
     UserDto saveNewUser(RegisterUserDto userDto);
     void updateUser(UserDto userDto);
+    void patchUser(Long id, UserPatchDto patchDto);
     List<UserDto> findAllUsers();
+    CursorPageDto<UserDto> findUsersPage(String after, int limit);
+    CursorPageDto<UserSummaryDto> searchUsers(String country, String city, boolean enabled, String after, int limit);
     void deleteUserById(Long id, String email);
+    UserDeleteBatchDto deleteUsersByIds(Collection<Long> ids);
 }
@@ -0,0 +1,90 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.model.projection.UserIdAndEmail;
+import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.service.EmailAvailabilityService;
+import com.bgauction.userservice.util.BloomFilter;
+import com.bgauction.userservice.util.EmailUtils;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Answers "is this email taken" from an in-memory Bloom filter of normalized emails, so an unused email costs
+ * no query. The users table is consulted only when the filter reports a possible match. A Bloom filter cannot
+ * forget values, so deleted emails stay in it until the next periodic rebuild and only cost that extra query.
+ * A missed email is never fatal: the unique constraint on {@code users.email} still rejects the insert.
+ */
+@Log4j2
+@Service
+public class EmailAvailabilityServiceImpl implements EmailAvailabilityService {
+
+    private static final int REBUILD_PAGE_SIZE = 10000;
+
+    private final UserRepository userRepository;
+    private final long expectedEmails;
+    private final double falsePositiveProbability;
+    private volatile BloomFilter emailFilter;
+    private volatile BloomFilter rebuildingFilter;
+
+    public EmailAvailabilityServiceImpl(UserRepository userRepository,
+                                        @Value("${user.email-filter.expected-insertions}") long expectedEmails,
+                                        @Value("${user.email-filter.false-positive-probability}") double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.expectedEmails = expectedEmails;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        String normalizedEmail = EmailUtils.normalize(email);
+        BloomFilter filter = emailFilter;
+        if (filter != null && !filter.mightContain(normalizedEmail)) {
+            return true;
+        }
+        return !userRepository.existsByEmail(normalizedEmail);
+    }
+
+    @Override
+    public void registerEmail(String email) {
+        String normalizedEmail = EmailUtils.normalize(email);
+        BloomFilter filter = emailFilter;
+        if (filter != null) {
+            filter.put(normalizedEmail);
+        }
+        BloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.put(normalizedEmail);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.email-filter.rebuild-interval}",
+            fixedDelayString = "${user.email-filter.rebuild-interval}")
+    public synchronized void rebuildEmailFilter() {
+        long userCount = userRepository.count();
+        BloomFilter filter = BloomFilter.create(Math.max(expectedEmails, userCount * 2), falsePositiveProbability);
+        // registrations made while the table is scanned are written to both filters
+        rebuildingFilter = filter;
+        long afterId = 0;
+        List<UserIdAndEmail> page;
+        do {
+            page = userRepository.findIdAndEmailByIdGreaterThanOrderByIdAsc(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            for (UserIdAndEmail user : page) {
+                filter.put(EmailUtils.normalize(user.email()));
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        emailFilter = filter;
+        rebuildingFilter = null;
+        log.info("Email filter rebuilt with {} users", filter.insertions());
+    }
+}
@@ -0,0 +1,148 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.exception.InvalidTokenException;
+import com.bgauction.userservice.exception.NotFoundException;
+import com.bgauction.userservice.model.entity.RevokedToken;
+import com.bgauction.userservice.repository.RevokedTokenRepository;
+import com.bgauction.userservice.security.JwtUtil;
+import com.bgauction.userservice.security.UserDetailsImpl;
+import com.bgauction.userservice.service.RefreshTokenService;
+import com.bgauction.userservice.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Refresh tokens are signed JWTs, so refreshing needs no DB lookup of the token itself. Revoked token ids are
+ * kept in a revocation table and mirrored in an in-memory Bloom filter; the table is consulted only when the
+ * filter reports a possible match. Revocations made by other instances are pulled into the filter every few
+ * seconds, and the filter is rebuilt from the table periodically to drop expired ones.
+ */
+@Log4j2
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedRevocations;
+    private final double falsePositiveProbability;
+    private final Duration syncOverlap;
+    private volatile BloomFilter revokedFilter;
+    private volatile BloomFilter rebuildingFilter;
+    private volatile LocalDateTime syncedUntil;
+
+    public RefreshTokenServiceImpl(JwtUtil jwtUtil,
+                                   UserDetailsService userDetailsService,
+                                   RevokedTokenRepository revokedTokenRepository,
+                                   @Value("${jwt.revocation.expected-insertions}") long expectedRevocations,
+                                   @Value("${jwt.revocation.false-positive-probability}") double falsePositiveProbability,
+                                   @Value("${jwt.revocation.sync-overlap}") Duration syncOverlap) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.syncOverlap = syncOverlap;
+        this.revokedFilter = BloomFilter.create(expectedRevocations, falsePositiveProbability);
+        this.syncedUntil = LocalDateTime.now();
+    }
+
+    @Override
+    public String issueRefreshToken(UserDetailsImpl user) {
+        return jwtUtil.generateRefreshToken(user.getId(), user.getUsername(), UUID.randomUUID().toString());
+    }
+
+    @Override
+    public String refreshAccessToken(String refreshToken) {
+        Claims claims = parseRefreshToken(refreshToken);
+        String jti = claims.getId();
+        if (revokedFilter.mightContain(jti) && revokedTokenRepository.existsById(jti)) {
+            log.warn("Revoked refresh token {} is used for User with id {}", jti, claims.getSubject());
+            throw new InvalidTokenException("Refresh token is revoked");
+        }
+        // served from the principal cache, so a refresh normally touches neither BCrypt nor the DB
+        UserDetailsImpl user;
+        try {
+            user = (UserDetailsImpl) userDetailsService.loadUserByUsername(claims.get("email", String.class));
+        } catch (NotFoundException ex) {
+            throw new InvalidTokenException("User of the refresh token no longer exists");
+        }
+        if (!user.getId().toString().equals(claims.getSubject())) {
+            throw new InvalidTokenException("Refresh token does not match the user");
+        }
+        return jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    @Override
+    public void revoke(String refreshToken) {
+        Claims claims = parseRefreshToken(refreshToken);
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(claims.getId(), LocalDateTime.now(), expiresAt));
+        markRevoked(claims.getId());
+        log.info("Refresh token {} of User with id {} is revoked", claims.getId(), claims.getSubject());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-interval}",
+            fixedDelayString = "${jwt.revocation.rebuild-interval}")
+    public synchronized void rebuildRevocationFilter() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = revokedTokenRepository.deleteExpired(now);
+        long activeCount = revokedTokenRepository.count();
+        BloomFilter filter = BloomFilter.create(Math.max(expectedRevocations, activeCount * 2),
+                falsePositiveProbability);
+        // revocations made while the table is read are written to both filters
+        rebuildingFilter = filter;
+        List<String> activeJtis = revokedTokenRepository.findActiveJtis(now);
+        activeJtis.forEach(filter::put);
+        revokedFilter = filter;
+        rebuildingFilter = null;
+        log.info("Revocation filter rebuilt with {} revoked tokens, {} expired purged", activeJtis.size(), purged);
+    }
+
+    @Scheduled(initialDelayString = "${jwt.revocation.sync-interval}",
+            fixedDelayString = "${jwt.revocation.sync-interval}")
+    public synchronized void syncRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        // re-reads an overlap, so rows committed late or stamped by a skewed clock are not missed
+        List<String> jtis = revokedTokenRepository.findJtisRevokedSince(syncedUntil.minus(syncOverlap), now);
+        jtis.forEach(this::markRevoked);
+        syncedUntil = now;
+        log.debug("Revocation filter synced with {} recently revoked tokens", jtis.size());
+    }
+
+    private void markRevoked(String jti) {
+        // the rebuilding filter is read first: if it is already gone, the current filter is the rebuilt one
+        BloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.put(jti);
+        }
+        revokedFilter.put(jti);
+    }
+
+    private Claims parseRefreshToken(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw new InvalidTokenException("Refresh token is not valid");
+        }
+        if (!JwtUtil.REFRESH_TOKEN_TYPE.equals(claims.get(JwtUtil.TOKEN_TYPE_CLAIM)) || claims.getId() == null) {
+            throw new InvalidTokenException("Refresh token is not valid");
+        }
+        return claims;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.config.CacheConfig;
+import com.bgauction.userservice.util.EmailUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Programmatic counterpart of {@code @CacheEvict} for keys that are only known inside a service method.
+ * Evictions are deferred until the current transaction commits, so a concurrent reader cannot
+ * repopulate the cache with the old row.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    public void evictUser(Long id) {
+        evictUsers(List.of(id));
+    }
+
+    public void evictUsers(Collection<Long> ids) {
+        List<Long> keys = List.copyOf(ids);
+        evictAfterCommit(CacheConfig.USERS_CACHE, keys);
+        evictAfterCommit(CacheConfig.USER_VERSIONS_CACHE, keys);
+    }
+
+    public void evictPrincipal(String email) {
+        evictAfterCommit(CacheConfig.PRINCIPALS_CACHE, List.of(EmailUtils.normalize(email)));
+    }
+
+    public void evictPrincipals(Collection<String> emails) {
+        evictAfterCommit(CacheConfig.PRINCIPALS_CACHE, emails.stream().map(EmailUtils::normalize).toList());
+    }
+
+    private void evictAfterCommit(String cacheName, Collection<?> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || keys.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.forEach(cache::evict);
+                }
+            });
+        } else {
+            keys.forEach(cache::evict);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.exception.ChangeCursorExpiredException;
+import com.bgauction.userservice.model.dto.UserChangeDto;
+import com.bgauction.userservice.model.dto.UserChangesDto;
+import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.entity.UserChange;
+import com.bgauction.userservice.model.entity.UserChangeType;
+import com.bgauction.userservice.model.mapper.UserMapper;
+import com.bgauction.userservice.model.projection.UserView;
+import com.bgauction.userservice.repository.UserChangeRepository;
+import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.service.UserChangeFeedService;
+import com.bgauction.userservice.util.CursorUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the {@code user_changes} outbox as a change feed. A cursor is the id of the last change a consumer has
+ * seen, a page holds the latest change of each user after it, with the user's current state read from the
+ * primary rather than the cache, which may still be evicted after the commit.
+ * <p>
+ * Ids are allocated at insert but become visible at commit, so a gap in the ids may be a transaction that has
+ * not committed yet. A page stops before such a gap until the settle time has passed, so a consumer never
+ * moves its cursor past a change it has not seen. This holds as long as no transaction outlives the settle
+ * time, so the settle time must exceed the enforced transaction timeout.
+ * <p>
+ * Polls that find nothing wait for a commit of this instance, or for the next periodic check that notices
+ * commits of other instances. Changes are compacted away after the retention. The newest expired change is kept
+ * as a marker, so a cursor from before the compaction can be told apart from a gap and rejected.
+ */
+@Log4j2
+@Service
+public class UserChangeFeedServiceImpl implements UserChangeFeedService {
+
+    private final UserChangeRepository userChangeRepository;
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final Duration settleTime;
+    private final Duration retention;
+    private final int compactionChunkSize;
+    private final Set<PendingPoll> pendingPolls = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-changes-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserChangeFeedServiceImpl(UserChangeRepository userChangeRepository,
+                                     UserRepository userRepository,
+                                     UserMapper userMapper,
+                                     @Value("${user.changes.settle-time}") Duration settleTime,
+                                     @Value("${spring.transaction.default-timeout}") Duration transactionTimeout,
+                                     @Value("${user.changes.retention}") Duration retention,
+                                     @Value("${user.changes.compaction-chunk-size}") int compactionChunkSize) {
+        this.userChangeRepository = userChangeRepository;
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        if (settleTime.compareTo(transactionTimeout) <= 0) {
+            throw new IllegalStateException("user.changes.settle-time must be longer than the transaction timeout");
+        }
+        this.settleTime = settleTime;
+        this.retention = retention;
+        this.compactionChunkSize = compactionChunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        pendingPolls.forEach(poll -> poll.future().cancel(false));
+    }
+
+    /**
+     * Without a cursor returns no changes and a starting cursor, placed a settle time back so that no change
+     * before it is still in flight. A consumer takes it before loading the full user list, then follows the feed.
+     */
+    @Override
+    public UserChangesDto findChanges(String since, int limit) {
+        if (since == null) {
+            long start = userChangeRepository.findLastIdChangedBefore(LocalDateTime.now().minus(settleTime))
+                    .orElse(0L);
+            return UserChangesDto.builder()
+                    .changes(List.of())
+                    .nextCursor(CursorUtils.encode(start))
+                    .build();
+        }
+        long afterId = CursorUtils.decode(since);
+        UserChange first = userChangeRepository.findFirstByOrderByIdAsc().orElse(null);
+        if (first != null && afterId + 1 < first.getId()
+                && first.getChangedAt().isBefore(LocalDateTime.now().minus(retention))) {
+            log.warn("Change cursor {} is older than the oldest retained change {}", afterId, first.getId());
+            throw new ChangeCursorExpiredException("Changes after this cursor are compacted, reload all users");
+        }
+        return readChanges(afterId, limit);
+    }
+
+    @Override
+    public CompletableFuture<UserChangesDto> awaitChanges(String since, int limit) {
+        PollPosition position = new PollPosition(CursorUtils.decode(since), limit);
+        PendingPoll poll = new PendingPoll(position, new CompletableFuture<>());
+        pendingPolls.add(poll);
+        poll.future().whenComplete((changes, ex) -> pendingPolls.remove(poll));
+        // a change may have committed between the caller's read and the registration
+        scheduleDispatch();
+        return poll.future();
+    }
+
+    @TransactionalEventListener
+    public void onChangesRecorded(UserChangeRecorder.ChangesRecorded event) {
+        scheduleDispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${user.changes.poll-interval}")
+    public void checkPendingPolls() {
+        scheduleDispatch();
+    }
+
+    @Scheduled(initialDelayString = "${user.changes.compaction-interval}",
+            fixedDelayString = "${user.changes.compaction-interval}")
+    public void compactChanges() {
+        Long expiredId = userChangeRepository.findLastIdChangedBefore(LocalDateTime.now().minus(retention))
+                .orElse(null);
+        if (expiredId == null) {
+            return;
+        }
+        // the newest expired change stays as the marker
+        long toId = expiredId - 1;
+        long fromId = userChangeRepository.findFirstByOrderByIdAsc().map(UserChange::getId).orElse(expiredId);
+        long deleted = 0;
+        // short range deletes, so compaction never holds locks on the whole table
+        for (long chunkStart = fromId; chunkStart <= toId; chunkStart += compactionChunkSize) {
+            deleted += userChangeRepository.deleteByIdBetween(chunkStart,
+                    Math.min(chunkStart + compactionChunkSize - 1, toId));
+        }
+        log.info("User changes compacted: {} deleted up to id {}", deleted, toId);
+    }
+
+    private void scheduleDispatch() {
+        if (pendingPolls.isEmpty() || !dispatchScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                // reset first, so a commit during this run schedules another one
+                dispatchScheduled.set(false);
+                dispatch();
+            });
+        } catch (RejectedExecutionException ex) {
+            dispatchScheduled.set(false);
+        }
+    }
+
+    /**
+     * Completes the pending polls that have changes. Polls at the same position share one read.
+     */
+    private void dispatch() {
+        try {
+            long lastId = userChangeRepository.findLastId().orElse(0L);
+            Map<PollPosition, UserChangesDto> read = new HashMap<>();
+            for (PendingPoll poll : pendingPolls) {
+                if (poll.position().afterId() >= lastId) {
+                    continue;
+                }
+                UserChangesDto changes = read.computeIfAbsent(poll.position(),
+                        position -> readChanges(position.afterId(), position.limit()));
+                if (!changes.getChanges().isEmpty()) {
+                    poll.future().complete(changes);
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Dispatching user changes failed", ex);
+        }
+    }
+
+    private UserChangesDto readChanges(long afterId, int limit) {
+        List<UserChange> rows = userChangeRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settleTime);
+        long position = afterId;
+        Map<Long, UserChange> latestByUser = new LinkedHashMap<>();
+        for (UserChange row : rows) {
+            if (row.getId() != position + 1L && row.getChangedAt().isAfter(settledBefore)) {
+                break;
+            }
+            // re-inserted, so users stay ordered by their latest change
+            latestByUser.remove(row.getUserId());
+            latestByUser.put(row.getUserId(), row);
+            position = row.getId();
+        }
+
+        List<Long> upsertedIds = latestByUser.values().stream()
+                .filter(change -> change.getChangeType() == UserChangeType.UPSERT)
+                .map(UserChange::getUserId)
+                .toList();
+        Map<Long, UserDto> users = upsertedIds.isEmpty()
+                ? Map.of()
+                : userRepository.findViewsByIdIn(upsertedIds).stream()
+                        .collect(Collectors.toMap(UserView::id, userMapper::userViewToUserDto));
+        List<UserChangeDto> changes = new ArrayList<>(latestByUser.size());
+        for (Long userId : latestByUser.keySet()) {
+            UserDto user = users.get(userId);
+            // a user deleted since the upsert is reported as deleted, its delete change follows
+            changes.add(UserChangeDto.builder()
+                    .userId(userId)
+                    .type(user != null ? UserChangeType.UPSERT : UserChangeType.DELETE)
+                    .user(user)
+                    .build());
+        }
+        return UserChangesDto.builder()
+                .changes(changes)
+                .nextCursor(CursorUtils.encode(position))
+                .build();
+    }
+
+    private record PollPosition(long afterId, int limit) {
+    }
+
+    private record PendingPoll(PollPosition position, CompletableFuture<UserChangesDto> future) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.model.entity.UserChangeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends user changes to the {@code user_changes} outbox. Records are written in the transaction of the change
+ * itself, so a change is in the feed exactly when it is committed. A {@link ChangesRecorded} event is published,
+ * and the feed picks it up after commit to answer waiting polls.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class UserChangeRecorder {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_changes (user_id, change_type, changed_at) VALUES (?, ?, ?)";
+    private static final String IDS_BY_EMAIL_SQL = "SELECT id FROM users WHERE email IN (:emails)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void recordUpsert(Long userId) {
+        record(List.of(userId), UserChangeType.UPSERT);
+    }
+
+    public void recordDelete(Long userId) {
+        record(List.of(userId), UserChangeType.DELETE);
+    }
+
+    public void recordDeletes(Collection<Long> userIds) {
+        record(userIds, UserChangeType.DELETE);
+    }
+
+    /**
+     * Records inserts whose generated ids are not known, such as JDBC batch inserts, by looking the users up by email.
+     * The ids are read first and inserted as plain rows: an INSERT ... SELECT does not know its row count up front,
+     * so MySQL reserves auto-increment ids for it in blocks and leaves gaps the feed would have to wait out.
+     */
+    public void recordUpsertsByEmail(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = namedParameterJdbcTemplate.queryForList(IDS_BY_EMAIL_SQL, Map.of("emails", emails),
+                Long.class);
+        record(userIds, UserChangeType.UPSERT);
+    }
+
+    private void record(Collection<Long> userIds, UserChangeType type) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Timestamp changedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setString(2, type.name());
+            ps.setTimestamp(3, changedAt);
+        });
+        eventPublisher.publishEvent(new ChangesRecorded());
+    }
+
+    public record ChangesRecorded() {
+    }
+}
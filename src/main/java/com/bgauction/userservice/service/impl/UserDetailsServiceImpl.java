@@ -1,12 +1,15 @@
 package com.bgauction.userservice.service.impl;
 
+import com.bgauction.userservice.config.CacheConfig;
 import com.bgauction.userservice.exception.NotFoundException;
 import com.bgauction.userservice.model.entity.User;
 import com.bgauction.userservice.repository.UserRepository;
 import com.bgauction.userservice.security.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -16,14 +19,35 @@ import java.util.Optional;
 @Log4j2
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCacheEvictor userCacheEvictor;
 
+    /**
+     * Principals are cached by normalized email for a short TTL, so repeated logins skip the DB.
+     * {@link UserDetailsImpl} is not a {@code CredentialsContainer}, so the cached password hash
+     * survives the credential erasure done by the authentication manager.
+     */
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS_CACHE,
+            key = "T(com.bgauction.userservice.util.EmailUtils).normalize(#email)")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Optional<User> opt = userRepository.findByEmail(email);
         User user = opt.orElseThrow(() -> new NotFoundException("User with email \"" + email + "\" not found"));
         return new UserDetailsImpl(user);
     }
+
+    /**
+     * Called by the authentication provider after a successful login when the stored hash
+     * does not use the calibrated BCrypt strength.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) user;
+        userRepository.updatePassword(userDetails.getId(), newPassword);
+        userCacheEvictor.evictPrincipal(userDetails.getUsername());
+        log.info("Password hash of User with id {} is re-encoded", userDetails.getId());
+        return userDetails.withPassword(newPassword);
+    }
 }
@@ -0,0 +1,294 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.model.dto.UserImportDto;
+import com.bgauction.userservice.model.dto.UserImportErrorDto;
+import com.bgauction.userservice.model.dto.UserImportResultDto;
+import com.bgauction.userservice.model.entity.Role;
+import com.bgauction.userservice.security.BoundedPasswordEncoder;
+import com.bgauction.userservice.service.EmailAvailabilityService;
+import com.bgauction.userservice.service.UserImportService;
+import com.bgauction.userservice.util.EmailUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Streams NDJSON users into the table in JDBC batches, bypassing JPA: with {@code IDENTITY} ids Hibernate
+ * has to insert rows one by one to read back each key, while a plain batched insert lets the driver rewrite a
+ * batch into one multi-row statement. Only one batch is held in memory at a time. Each batch is checked for
+ * existing emails with one query, raw passwords are hashed in parallel on a dedicated executor and the batch is
+ * inserted in its own transaction, together with its change records. A batch that still fails is retried row by
+ * row to isolate the bad records.
+ */
+@Log4j2
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO users (username, password, email, enabled, role, " +
+            "first_name, last_name, country, city, delivery_info) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String EXISTING_EMAILS_SQL = "SELECT email FROM users WHERE email IN (:emails)";
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final ObjectReader userReader;
+    private final Validator validator;
+    private final PasswordEncoder hashingEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailAvailabilityService emailAvailabilityService;
+    private final UserChangeRecorder userChangeRecorder;
+    private final ExecutorService hashExecutor;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final int minStrength;
+    private final int maxStrength;
+
+    public UserImportServiceImpl(ObjectMapper objectMapper,
+                                 Validator validator,
+                                 PasswordEncoder passwordEncoder,
+                                 JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 EmailAvailabilityService emailAvailabilityService,
+                                 UserChangeRecorder userChangeRecorder,
+                                 @Value("${user.import.batch-size}") int batchSize,
+                                 @Value("${user.import.hash-threads}") int hashThreads,
+                                 @Value("${user.import.max-reported-errors}") int maxReportedErrors,
+                                 @Value("${password-encoder.min-strength}") int minStrength,
+                                 @Value("${password-encoder.max-strength}") int maxStrength) {
+        this.userReader = objectMapper.readerFor(UserImportDto.class);
+        this.validator = validator;
+        // imports hash on their own threads, so they never take queue slots from logins
+        this.hashingEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.getDelegate()
+                : passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.emailAvailabilityService = emailAvailabilityService;
+        this.userChangeRecorder = userChangeRecorder;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.minStrength = minStrength;
+        this.maxStrength = maxStrength;
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashExecutor = Executors.newFixedThreadPool(threads, new ImportThreadFactory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    @Override
+    public UserImportResultDto importUsers(InputStream ndjson) throws IOException {
+        ImportProgress progress = new ImportProgress();
+        List<ImportRecord> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ImportRecord record = parse(line, lineNumber, progress);
+            if (record != null) {
+                batch.add(record);
+            }
+            if (batch.size() == batchSize) {
+                importBatch(batch, progress);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, progress);
+        }
+        log.info("User import finished: {} imported, {} failed", progress.imported, progress.failed);
+        return UserImportResultDto.builder()
+                .imported(progress.imported)
+                .failed(progress.failed)
+                .errors(progress.errors)
+                .errorsTruncated(progress.failed > progress.errors.size())
+                .build();
+    }
+
+    private ImportRecord parse(String line, long lineNumber, ImportProgress progress) {
+        UserImportDto user;
+        try {
+            user = userReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            progress.fail(lineNumber, null, "Malformed JSON: " + ex.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<UserImportDto>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            progress.fail(lineNumber, user.getEmail(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        if ((user.getPassword() == null) == (user.getPasswordHash() == null)) {
+            progress.fail(lineNumber, user.getEmail(), "Exactly one of password and passwordHash is required");
+            return null;
+        }
+        if (user.getPasswordHash() != null) {
+            Matcher matcher = BCRYPT_PATTERN.matcher(user.getPasswordHash());
+            if (!matcher.matches()) {
+                progress.fail(lineNumber, user.getEmail(), "passwordHash is not a BCrypt hash");
+                return null;
+            }
+            // a cost BCrypt rejects fails every login, a huge one holds a hashing thread for minutes per attempt
+            int strength = Integer.parseInt(matcher.group(2));
+            if (strength < minStrength || strength > maxStrength) {
+                progress.fail(lineNumber, user.getEmail(),
+                        "passwordHash cost must be between " + minStrength + " and " + maxStrength);
+                return null;
+            }
+        }
+        return new ImportRecord(lineNumber, user, EmailUtils.normalize(user.getEmail()));
+    }
+
+    private void importBatch(List<ImportRecord> batch, ImportProgress progress) {
+        List<ImportRecord> newUsers = dropExistingEmails(batch, progress);
+        if (newUsers.isEmpty()) {
+            return;
+        }
+        hashPasswords(newUsers);
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(newUsers));
+            newUsers.forEach(record -> imported(record, progress));
+        } catch (DataAccessException ex) {
+            log.warn("Batch insert of {} users failed, retrying one by one: {}", newUsers.size(), ex.getMessage());
+            for (ImportRecord record : newUsers) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(record)));
+                    imported(record, progress);
+                } catch (DataAccessException rowEx) {
+                    progress.fail(record.line, record.user.getEmail(), rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops records whose email is already stored or repeated earlier in the batch, before any hashing.
+     */
+    private List<ImportRecord> dropExistingEmails(List<ImportRecord> batch, ImportProgress progress) {
+        Set<String> emails = batch.stream().map(record -> record.normalizedEmail).collect(Collectors.toSet());
+        Set<String> taken = new HashSet<>();
+        namedParameterJdbcTemplate.queryForList(EXISTING_EMAILS_SQL, Map.of("emails", emails), String.class)
+                .forEach(email -> taken.add(EmailUtils.normalize(email)));
+        List<ImportRecord> newUsers = new ArrayList<>(batch.size());
+        for (ImportRecord record : batch) {
+            if (taken.add(record.normalizedEmail)) {
+                newUsers.add(record);
+            } else {
+                progress.fail(record.line, record.user.getEmail(), "This email is already used");
+            }
+        }
+        return newUsers;
+    }
+
+    private void hashPasswords(List<ImportRecord> records) {
+        CompletableFuture<?>[] hashing = records.stream()
+                .filter(record -> record.user.getPasswordHash() == null)
+                .map(record -> CompletableFuture.runAsync(
+                        () -> record.passwordHash = hashingEncoder.encode(record.user.getPassword()), hashExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(hashing).join();
+    }
+
+    private void insert(List<ImportRecord> records) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (ps, record) -> {
+            UserImportDto user = record.user;
+            ps.setString(1, user.getUsername());
+            ps.setString(2, record.passwordHash != null ? record.passwordHash : user.getPasswordHash());
+            ps.setString(3, user.getEmail());
+            ps.setBoolean(4, user.getEnabled() == null || user.getEnabled());
+            ps.setString(5, Role.USER.name());
+            ps.setString(6, user.getFirstName());
+            ps.setString(7, user.getLastName());
+            ps.setString(8, user.getCountry());
+            ps.setString(9, user.getCity());
+            ps.setString(10, user.getDeliveryInfo());
+        });
+        userChangeRecorder.recordUpsertsByEmail(records.stream().map(record -> record.user.getEmail()).toList());
+    }
+
+    private void imported(ImportRecord record, ImportProgress progress) {
+        progress.imported++;
+        emailAvailabilityService.registerEmail(record.normalizedEmail);
+    }
+
+    private static final class ImportRecord {
+
+        private final long line;
+        private final UserImportDto user;
+        private final String normalizedEmail;
+        private String passwordHash;
+
+        private ImportRecord(long line, UserImportDto user, String normalizedEmail) {
+            this.line = line;
+            this.user = user;
+            this.normalizedEmail = normalizedEmail;
+        }
+    }
+
+    private final class ImportProgress {
+
+        private final List<UserImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private void fail(long line, String email, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new UserImportErrorDto(line, email, message));
+            }
+        }
+    }
+
+    private static final class ImportThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "user-import-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
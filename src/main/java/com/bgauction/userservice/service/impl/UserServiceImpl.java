@@ -1,62 +1,166 @@
 package com.bgauction.userservice.service.impl;
 
+import com.bgauction.userservice.config.CacheConfig;
+import com.bgauction.userservice.config.EvictionCountingCache;
+import com.bgauction.userservice.exception.EmailAlreadyUsedException;
 import com.bgauction.userservice.exception.NotFoundException;
+import com.bgauction.userservice.logging.LogMarkers;
+import com.bgauction.userservice.model.dto.CursorPageDto;
 import com.bgauction.userservice.model.dto.RegisterUserDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchDto;
 import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.dto.UserPatchDto;
+import com.bgauction.userservice.model.dto.UserSummaryDto;
 import com.bgauction.userservice.model.entity.Role;
 import com.bgauction.userservice.model.entity.User;
 import com.bgauction.userservice.model.mapper.UserMapper;
+import com.bgauction.userservice.model.projection.UserIdAndEmail;
+import com.bgauction.userservice.model.projection.UserView;
 import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.service.EmailAvailabilityService;
 import com.bgauction.userservice.service.UserService;
+import com.bgauction.userservice.util.CursorUtils;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Log4j2
 @Service
 @Transactional
+@Timed("user.service")
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserCacheEvictor userCacheEvictor;
+    private final UserChangeRecorder userChangeRecorder;
+    private final CacheManager cacheManager;
+    private final EmailAvailabilityService emailAvailabilityService;
+
+    @Value("${user.delete-batch.chunk-size}")
+    private int deleteChunkSize;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
     public UserDto findUserById(Long id) {
-        log.info("Trying to find User with id: {}", id);
-        Optional<User> userOpt = userRepository.findById(id);
+        Optional<UserView> userOpt = userRepository.findViewById(id);
         if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            log.info("Found User with id {}: {}", id, user);
-            return userMapper.userToUserDto(user);
+            log.info(LogMarkers.USER_LOOKUP, "User found: id={}", id);
+            return userMapper.userViewToUserDto(userOpt.get());
         } else {
             log.warn("User with id {} is not found", id);
             throw new NotFoundException("User with id " + id + " not found");
         }
     }
 
+    /**
+     * Returns the last modification time of the user, the only column needed to answer a conditional GET.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USER_VERSIONS_CACHE, key = "#id")
+    public LocalDateTime findUserVersion(Long id) {
+        return userRepository.findUpdatedById(id).orElseThrow(() -> {
+            log.warn("User with id {} is not found", id);
+            return new NotFoundException("User with id " + id + " not found");
+        });
+    }
+
+    @Override
+    public UserBatchDto findUsersByIds(Collection<Long> ids) {
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        EvictionCountingCache cache = (EvictionCountingCache) cacheManager.getCache(CacheConfig.USERS_CACHE);
+        Map<Long, UserDto> found = new HashMap<>();
+        List<Long> notCachedIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            UserDto cached = cache.get(id, UserDto.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                notCachedIds.add(id);
+            }
+        }
+        if (!notCachedIds.isEmpty()) {
+            long evictions = cache.evictions();
+            List<Long> loadedIds = new ArrayList<>(notCachedIds.size());
+            for (UserView user : userRepository.findViewsByIdIn(notCachedIds)) {
+                UserDto userDto = userMapper.userViewToUserDto(user);
+                cache.putIfAbsent(user.id(), userDto);
+                found.put(user.id(), userDto);
+                loadedIds.add(user.id());
+            }
+            // a commit evicted users meanwhile, the rows loaded before it must not outlive its eviction
+            if (cache.evictions() != evictions) {
+                loadedIds.forEach(cache::evict);
+            }
+        }
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            UserDto userDto = found.get(id);
+            if (userDto != null) {
+                users.add(userDto);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        log.info(LogMarkers.USER_LIST, "Users found: {} of {} requested, {} from cache",
+                users.size(), requestedIds.size(), requestedIds.size() - notCachedIds.size());
+        return UserBatchDto.builder()
+                .users(users)
+                .missingIds(missingIds)
+                .build();
+    }
+
     @Override
     public UserDto saveNewUser(RegisterUserDto userDto) {
+        // checked before hashing, so a duplicate signup does not pay for BCrypt
+        if (!emailAvailabilityService.isEmailAvailable(userDto.getEmail())) {
+            log.warn("Email {} is already used", userDto.getEmail());
+            throw new EmailAlreadyUsedException("This email is already used");
+        }
         User userForSave = userMapper.UserSavindDtoToUser(userDto);
         userForSave.setEnabled(true);
         userForSave.setRole(Role.USER);
         userForSave.setPassword(passwordEncoder.encode(userForSave.getPassword()));
-        log.info("Saving User: {}", userForSave);
 
         User savedUser = userRepository.save(userForSave);
-        log.info("User saved: {}", savedUser);
+        userChangeRecorder.recordUpsert(savedUser.getId());
+        emailAvailabilityService.registerEmail(savedUser.getEmail());
+        log.info("User saved: id={}", savedUser.getId());
 
         return userMapper.userToUserDto(savedUser);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userDto.id"),
+            @CacheEvict(cacheNames = CacheConfig.USER_VERSIONS_CACHE, key = "#userDto.id")
+    })
     public void updateUser(UserDto userDto) {
         Long id = userDto.getId();
         Optional<User> userOpt = userRepository.findById(id);
@@ -67,32 +171,146 @@ public class UserServiceImpl implements UserService {
 
         User notUpdatedUser = userOpt.get();
         User userForUpdate = userMapper.userDtoToUser(userDto);
-        log.info("Updating User: {}", userForUpdate);
         userForUpdate.setPassword(notUpdatedUser.getPassword());
         userForUpdate.setRole(notUpdatedUser.getRole());
         userForUpdate.setEnabled(notUpdatedUser.getEnabled());
         userRepository.save(userForUpdate);
+        userChangeRecorder.recordUpsert(id);
+        emailAvailabilityService.registerEmail(userForUpdate.getEmail());
+        userCacheEvictor.evictPrincipal(notUpdatedUser.getEmail());
         log.info("User with id {} updated", userDto.getId());
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.USER_VERSIONS_CACHE, key = "#id")
+    })
+    public void patchUser(Long id, UserPatchDto patchDto) {
+        if (patchDto.isEmpty()) {
+            checkIfExistsById(id);
+            return;
+        }
+        // the old email is needed only to evict its cached principal
+        String oldEmail = null;
+        if (patchDto.getEmail() != null) {
+            oldEmail = userRepository.findEmailById(id).orElseThrow(() -> {
+                log.warn("User with id {} is not found", id);
+                return new NotFoundException("User with id " + id + " not found");
+            });
+        }
+        log.info("Patching User with id {}", id);
+        if (userRepository.patchUser(id, patchDto) == 0) {
+            log.warn("User with id {} is not found", id);
+            throw new NotFoundException("User with id " + id + " not found");
+        }
+        userChangeRecorder.recordUpsert(id);
+        if (oldEmail != null) {
+            emailAvailabilityService.registerEmail(patchDto.getEmail());
+            userCacheEvictor.evictPrincipal(oldEmail);
+        }
+        log.info("User with id {} patched", id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<UserDto> findAllUsers() {
-        List<User> list = userRepository.findAll();
-        log.info("Get all User's list. List size: {}", list.size());
-        return list.stream().map(userMapper::userToUserDto).toList();
+        List<UserView> list = userRepository.findAllViews();
+        log.info(LogMarkers.USER_LIST, "Get all User's list. List size: {}", list.size());
+        return list.stream().map(userMapper::userViewToUserDto).toList();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserDto> findUsersPage(String after, int limit) {
+        long afterId = CursorUtils.decode(after);
+        // one extra row tells whether another page exists without a count query
+        List<UserView> users = userRepository.findViewsByIdGreaterThan(afterId, Limit.of(limit + 1));
+        boolean hasNext = users.size() > limit;
+        List<UserDto> items = users.stream()
+                .limit(limit)
+                .map(userMapper::userViewToUserDto)
+                .toList();
+        log.info(LogMarkers.USER_LIST, "Get User's page after id {}. Page size: {}", afterId, items.size());
+        return CursorPageDto.<UserDto>builder()
+                .items(items)
+                .nextCursor(hasNext ? CursorUtils.encode(items.get(items.size() - 1).getId()) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserSummaryDto> searchUsers(String country, String city, boolean enabled,
+                                                     String after, int limit) {
+        long afterId = CursorUtils.decode(after);
+        // each query has its own covering index, so both read the page straight off the index in id order
+        List<UserSummaryDto> users = city == null
+                ? userRepository.searchByCountry(country, enabled, afterId, Limit.of(limit + 1))
+                : userRepository.searchByCountryAndCity(country, city, enabled, afterId, Limit.of(limit + 1));
+        boolean hasNext = users.size() > limit;
+        List<UserSummaryDto> items = hasNext ? users.subList(0, limit) : users;
+        log.info(LogMarkers.USER_LIST, "Search Users in country {}, city {}, enabled {} after id {}. Page size: {}",
+                country, city, enabled, afterId, items.size());
+        return CursorPageDto.<UserSummaryDto>builder()
+                .items(items)
+                .nextCursor(hasNext ? CursorUtils.encode(items.get(items.size() - 1).getId()) : null)
+                .build();
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.USER_VERSIONS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRINCIPALS_CACHE,
+                    key = "T(com.bgauction.userservice.util.EmailUtils).normalize(#email)")
+    })
     public void deleteUserById(Long id, String email) {
-        checkIfExistsById(id);
         log.info("Deleting User with id: {}, email: {}", id, email);
         int deleted = userRepository.deleteByIdAndEmail(id, email);
         if (deleted == 0) {
+            // cold path: tell a missing user apart from an account owned by someone else
+            checkIfExistsById(id);
             throw new AccessDeniedException("");
         }
+        userChangeRecorder.recordDelete(id);
         log.info("User with id {} is deleted", id);
     }
 
+    @Override
+    public UserDeleteBatchDto deleteUsersByIds(Collection<Long> ids) {
+        List<Long> requestedIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Set<Long> deletedIds = new HashSet<>();
+        for (int from = 0; from < requestedIds.size(); from += deleteChunkSize) {
+            List<Long> chunk = requestedIds.subList(from, Math.min(from + deleteChunkSize, requestedIds.size()));
+            // rows are locked, so the reported ids match what the delete removes
+            List<UserIdAndEmail> existing = userRepository.findIdAndEmailForDelete(chunk);
+            if (existing.isEmpty()) {
+                continue;
+            }
+            List<Long> existingIds = existing.stream().map(UserIdAndEmail::id).toList();
+            userRepository.deleteAllByIdIn(existingIds);
+            userChangeRecorder.recordDeletes(existingIds);
+            userCacheEvictor.evictUsers(existingIds);
+            userCacheEvictor.evictPrincipals(existing.stream().map(UserIdAndEmail::email).toList());
+            deletedIds.addAll(existingIds);
+        }
+
+        List<Long> deleted = new ArrayList<>(deletedIds.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            if (deletedIds.contains(id)) {
+                deleted.add(id);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        log.info("Deleted {} of {} requested Users", deleted.size(), requestedIds.size());
+        return UserDeleteBatchDto.builder()
+                .deletedIds(deleted)
+                .missingIds(missingIds)
+                .build();
+    }
+
     private void checkIfExistsById(Long id) {
         if (!userRepository.existsById(id)) {
             log.warn("User with id {} is not found", id);
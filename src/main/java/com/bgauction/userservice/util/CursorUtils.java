@@ -0,0 +1,38 @@
+package com.bgauction.userservice.util;
+
+import com.bgauction.userservice.exception.InvalidPageRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque cursors. A cursor carries the last id of the previous page.
+ */
+public final class CursorUtils {
+
+    private CursorUtils() {
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Returns the id stored in the cursor, or 0 for the first page.
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            long id = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+            if (id < 0) {
+                throw new InvalidPageRequestException("Cursor is not valid");
+            }
+            return id;
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageRequestException("Cursor is not valid");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bgauction.userservice.util;
+
+import java.util.Locale;
+
+public final class EmailUtils {
+
+    private EmailUtils() {
+    }
+
+    /**
+     * Normalized form used as a lookup key. Matches the case-insensitive collation of {@code users.email}.
+     */
+    public static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bgauction.userservice.util;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free keyed rate limiter. Each key is a token bucket in its GCRA form: the bucket is a single
+ * theoretical arrival time, updated with one compare-and-set, so there is no refill task and no lock.
+ * A bucket whose arrival time has passed is full again, and {@link #evictIdle} drops it without changing
+ * any decision.
+ */
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(int requestsPerMinute, int burst) {
+        this(requestsPerMinute, burst, System::nanoTime);
+    }
+
+    RateLimiter(int requestsPerMinute, int burst, LongSupplier nanoClock) {
+        if (requestsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.emissionIntervalNanos = Duration.ofMinutes(1).toNanos() / requestsPerMinute;
+        this.toleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token for the key. Returns 0 when the request is allowed, otherwise the nanoseconds until it would be.
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = arrival.get();
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes full buckets. A request racing with the removal may be counted against a fresh bucket,
+     * which at most grants that key one extra burst.
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(arrival -> now - arrival.get() >= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
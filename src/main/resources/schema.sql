@@ -1,4 +1,6 @@
 DROP TABLE IF EXISTS users;
+DROP TABLE IF EXISTS revoked_tokens;
+DROP TABLE IF EXISTS user_changes;
 
 CREATE TABLE users (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -8,10 +10,33 @@ CREATE TABLE users (
     enabled BOOLEAN NOT NULL,
     role VARCHAR(50) NOT NULL,
     created TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
     first_name VARCHAR(255),
     last_name VARCHAR(255),
     country VARCHAR(255),
     city VARCHAR(255),
     delivery_info TEXT
 );
+
+-- covers user search: equality on country, city and enabled, keyset on id, username is read from the index
+CREATE INDEX idx_users_country_city_enabled ON users (country, city, enabled, id, username);
+-- the same for search by country only, which needs enabled right after country to read ids in order
+CREATE INDEX idx_users_country_enabled ON users (country, enabled, id, username, city);
+
+CREATE TABLE revoked_tokens (
+    jti VARCHAR(36) PRIMARY KEY,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+
+-- outbox of user changes, written in the same transaction as the change and read by the change feed
+CREATE TABLE user_changes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_user_changes_changed_at ON user_changes (changed_at);
@@ -3,7 +3,7 @@ package com.bgauction.userservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "grpc.server.port=0")
 class UserserviceApplicationTests {
 
 	@Test
@@ -0,0 +1,99 @@
+package com.bgauction.userservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = embeddedDatabase("primary");
+        replica = embeddedDatabase("replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        DataSource dataSource = ReplicaRoutingDataSource.readWriteSplitting(primary, List.of(replica), Duration.ofSeconds(30));
+
+        assertThat(currentDatabase(dataSource, true)).isEqualTo("replica");
+        assertThat(currentDatabase(dataSource, false)).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToPrimaryWhenReplicaIsDown() {
+        DataSource unavailableReplica = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unavailable");
+        DataSource dataSource = ReplicaRoutingDataSource.readWriteSplitting(
+                primary, List.of(unavailableReplica, replica), Duration.ofSeconds(30));
+
+        assertThat(currentDatabase(dataSource, true)).isEqualTo("replica");
+        assertThat(currentDatabase(dataSource, true)).isEqualTo("replica");
+
+        DataSource onlyUnavailable = ReplicaRoutingDataSource.readWriteSplitting(
+                primary, List.of(unavailableReplica), Duration.ofSeconds(30));
+        assertThat(currentDatabase(onlyUnavailable, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void connectionsWithCredentialsAreRoutedToo() throws SQLException {
+        DataSource unavailableReplica = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unavailable");
+        DataSource dataSource = new ReplicaRoutingDataSource(List.of(replica), primary, Duration.ofSeconds(30));
+        DataSource onlyUnavailable = new ReplicaRoutingDataSource(
+                List.of(unavailableReplica), primary, Duration.ofSeconds(30));
+
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            assertThat(nodeName(connection)).isEqualTo("replica");
+        }
+        try (Connection connection = onlyUnavailable.getConnection("sa", "")) {
+            assertThat(nodeName(connection)).isEqualTo("primary");
+        }
+    }
+
+    private static String nodeName(Connection connection) {
+        return new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                .queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static String currentDatabase(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static EmbeddedDatabase embeddedDatabase(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return database;
+    }
+}
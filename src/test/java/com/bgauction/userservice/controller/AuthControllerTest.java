@@ -0,0 +1,198 @@
+package com.bgauction.userservice.controller;
+
+import com.bgauction.userservice.config.MessageConverterConfig;
+import com.bgauction.userservice.exception.InvalidTokenException;
+import com.bgauction.userservice.security.AuthRateLimiter;
+import com.bgauction.userservice.security.JwtUtil;
+import com.bgauction.userservice.security.SpringSecurityConfig;
+import com.bgauction.userservice.service.EmailAvailabilityService;
+import com.bgauction.userservice.service.RefreshTokenService;
+import com.bgauction.userservice.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static com.bgauction.userservice.util.CreateObjectsForTests.getUserDto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AuthController.class)
+@Import({SpringSecurityConfig.class, JwtUtil.class, MessageConverterConfig.class, AuthControllerTest.RateLimitConfig.class})
+class AuthControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    AuthenticationManager authenticationManager;
+
+    @MockBean
+    UserService userService;
+
+    @MockBean
+    RefreshTokenService refreshTokenService;
+
+    @MockBean
+    EmailAvailabilityService emailAvailabilityService;
+
+    @MockBean
+    UserDetailsService userDetailsService;
+
+    @BeforeEach
+    public void setUp() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        when(userService.saveNewUser(any())).thenReturn(getUserDto(1));
+        when(emailAvailabilityService.isEmailAvailable(anyString())).thenReturn(true);
+    }
+
+    @Test
+    void loginIsLimitedPerIpBeforeEmail() throws Exception {
+        double ipRejections = rejections("ip", AuthRateLimiter.LOGIN);
+        double emailRejections = rejections("email", AuthRateLimiter.LOGIN);
+
+        mockMvc.perform(login("login1@email.com").with(remoteAddr("10.0.1.1")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(login("login2@email.com").with(remoteAddr("10.0.1.1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        assertThat(rejections("ip", AuthRateLimiter.LOGIN)).isEqualTo(ipRejections + 1);
+        assertThat(rejections("email", AuthRateLimiter.LOGIN)).isEqualTo(emailRejections);
+        // the rejected client did not use up the tokens of the email
+        mockMvc.perform(login("login2@email.com").with(remoteAddr("10.0.1.2")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void registerIsLimitedPerEmail() throws Exception {
+        double emailRejections = rejections("email", AuthRateLimiter.REGISTER);
+
+        mockMvc.perform(register("register1@email.com").with(remoteAddr("10.0.2.1")))
+                .andExpect(status().isCreated());
+        mockMvc.perform(register("Register1@email.com").with(remoteAddr("10.0.2.2")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        assertThat(rejections("email", AuthRateLimiter.REGISTER)).isEqualTo(emailRejections + 1);
+    }
+
+    @Test
+    void emailAvailableIsLimitedPerIp() throws Exception {
+        double ipRejections = rejections("ip", AuthRateLimiter.EMAIL_AVAILABLE);
+
+        mockMvc.perform(get("/auth/email-available").param("email", "free1@email.com").with(remoteAddr("10.0.3.1")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/auth/email-available").param("email", "free2@email.com").with(remoteAddr("10.0.3.1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        assertThat(rejections("ip", AuthRateLimiter.EMAIL_AVAILABLE)).isEqualTo(ipRejections + 1);
+    }
+
+    @Test
+    void refresh() throws Exception {
+        when(refreshTokenService.refreshAccessToken("refresh-token")).thenReturn("access-token");
+
+        mockMvc.perform(refreshRequest("/auth/refresh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("access-token"));
+    }
+
+    @Test
+    void refreshWithRevokedToken() throws Exception {
+        when(refreshTokenService.refreshAccessToken("refresh-token"))
+                .thenThrow(new InvalidTokenException("Refresh token is revoked"));
+
+        mockMvc.perform(refreshRequest("/auth/refresh"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshWithExpiredToken() throws Exception {
+        when(refreshTokenService.refreshAccessToken("refresh-token"))
+                .thenThrow(new InvalidTokenException("Refresh token is expired"));
+
+        mockMvc.perform(refreshRequest("/auth/refresh"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logout() throws Exception {
+        mockMvc.perform(refreshRequest("/auth/logout"))
+                .andExpect(status().isNoContent());
+
+        verify(refreshTokenService).revoke("refresh-token");
+    }
+
+    private double rejections(String limiter, String endpoint) {
+        return meterRegistry.get("auth.rate.limited").tag("limiter", limiter).tag("endpoint", endpoint)
+                .counter().count();
+    }
+
+    private static MockHttpServletRequestBuilder login(String email) {
+        return post("/auth/login")
+                .content("{\"email\":\"" + email + "\",\"password\":\"password1\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private static MockHttpServletRequestBuilder register(String email) {
+        return post("/auth/register")
+                .content("{\"email\":\"" + email + "\",\"username\":\"user1\",\"password\":\"password1\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private static MockHttpServletRequestBuilder refreshRequest(String path) {
+        return post(path)
+                .content("{\"refreshToken\":\"refresh-token\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private static RequestPostProcessor remoteAddr(String ip) {
+        return request -> {
+            request.setRemoteAddr(ip);
+            return request;
+        };
+    }
+
+    /**
+     * One request per minute with no burst, so the second request of a client or an email is rejected.
+     */
+    @TestConfiguration
+    static class RateLimitConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        AuthRateLimiter authRateLimiter(MeterRegistry meterRegistry) {
+            return new AuthRateLimiter(1, 1, 1, 1, meterRegistry);
+        }
+    }
+}
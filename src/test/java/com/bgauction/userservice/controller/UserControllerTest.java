@@ -1,10 +1,25 @@
 package com.bgauction.userservice.controller;
 
+import com.bgauction.userservice.config.MessageConverterConfig;
+import com.bgauction.userservice.exception.ChangeCursorExpiredException;
+import com.bgauction.userservice.model.dto.CursorPageDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserBatchRequestDto;
+import com.bgauction.userservice.model.dto.UserChangeDto;
+import com.bgauction.userservice.model.dto.UserChangesDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchRequestDto;
 import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.dto.UserImportResultDto;
+import com.bgauction.userservice.model.dto.UserPatchDto;
+import com.bgauction.userservice.model.entity.UserChangeType;
 import com.bgauction.userservice.security.JwtUtil;
 import com.bgauction.userservice.security.SpringSecurityConfig;
+import com.bgauction.userservice.service.UserChangeFeedService;
+import com.bgauction.userservice.service.UserImportService;
 import com.bgauction.userservice.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,24 +30,41 @@ import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static com.bgauction.userservice.util.CreateObjectsForTests.getListOfUserDto;
 import static com.bgauction.userservice.util.CreateObjectsForTests.getUserDto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @WebMvcTest(UserController.class)
-@Import({SpringSecurityConfig.class, JwtUtil.class})
+@Import({SpringSecurityConfig.class, JwtUtil.class, MessageConverterConfig.class})
 class UserControllerTest {
 
     @Autowired
@@ -44,6 +76,12 @@ class UserControllerTest {
     @MockBean
     UserService userService;
 
+    @MockBean
+    UserImportService userImportService;
+
+    @MockBean
+    UserChangeFeedService userChangeFeedService;
+
     @MockBean
     UserDetailsService userDetailsService;
 
@@ -52,6 +90,8 @@ class UserControllerTest {
 
     public String jwtToken;
 
+    public String adminJwtToken;
+
     @BeforeEach
     public void setUp() {
         when(userDetailsService.loadUserByUsername(anyString()))
@@ -61,22 +101,61 @@ class UserControllerTest {
                         Collections.singletonList(new SimpleGrantedAuthority("USER"))
                 ));
 
-        jwtToken = jwtUtil.generateToken("1@email.com");
+        when(userService.findUserVersion(anyLong())).thenReturn(LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000));
+
+        jwtToken = jwtUtil.generateToken(1L, "1@email.com", "USER");
+        adminJwtToken = jwtUtil.generateToken(2L, "2@email.com", "ADMIN");
     }
 
     @Test
     void getAllUserList() throws Exception {
 
-        when(userService.findAllUsers()).thenReturn(getListOfUserDto());
+        when(userService.findUsersPage(isNull(), eq(50))).thenReturn(CursorPageDto.<UserDto>builder()
+                .items(getListOfUserDto())
+                .nextCursor("Mw")
+                .build());
 
         mockMvc.perform(
-                get("/user")
-                        .header("Authorization", "Bearer " + jwtToken)
+                get("/internal/user")
                         .accept(MediaType.APPLICATION_JSON)
         )
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.length()").value(3));
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.nextCursor").value("Mw"));
+    }
+
+    @Test
+    void getAllUserListWithInvalidLimit() throws Exception {
+
+        mockMvc.perform(
+                        get("/internal/user")
+                                .param("limit", "0")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllUserListUnpagedWhenDisabled() throws Exception {
+
+        mockMvc.perform(
+                        get("/internal/user")
+                                .param("unpaged", "true")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchUsersWithoutCountry() throws Exception {
+
+        mockMvc.perform(
+                        get("/internal/user/search")
+                                .param("city", "Riga")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -93,10 +172,54 @@ class UserControllerTest {
                 )
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
                 .andExpect(jsonPath("$.id").value(userDto.getId()))
                 .andExpect(jsonPath("$.email").value(userDto.getEmail()));
     }
 
+    @Test
+    void getUserByIdAsCbor() throws Exception {
+
+        UserDto userDto = getUserDto(1);
+
+        when(userService.findUserById(userDto.getId())).thenReturn(userDto);
+
+        byte[] body = mockMvc.perform(
+                        get("/internal/user/{id}", userDto.getId())
+                                .accept("application/cbor")
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(new CBORMapper().readTree(body).get("email").asText()).isEqualTo(userDto.getEmail());
+    }
+
+    @Test
+    void getUserByIdNotModified() throws Exception {
+
+        String etag = mockMvc.perform(
+                        get("/internal/user/{id}", 1L)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(
+                        get("/internal/user/{id}", 1L)
+                                .header("If-None-Match", etag)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+
+        verify(userService, times(1)).findUserById(1L);
+    }
+
     @Test
     void getUserByIdWhenAskingForOtherUserData() throws Exception {
 
@@ -112,6 +235,42 @@ class UserControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void getUserByIdWithoutToken() throws Exception {
+
+        mockMvc.perform(
+                        get("/user/{id}", 1L)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getUserByIdWithTamperedToken() throws Exception {
+
+        mockMvc.perform(
+                        get("/user/{id}", 1L)
+                                .header("Authorization", "Bearer " + jwtToken.substring(0, jwtToken.length() - 2) + "xx")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getUserByIdWithRefreshToken() throws Exception {
+        UserDto userDto = getUserDto(1);
+        String refreshToken = jwtUtil.generateRefreshToken(1L, "1@email.com", "jti");
+
+        when(userService.findUserById(userDto.getId())).thenReturn(userDto);
+
+        mockMvc.perform(
+                        get("/user/{id}", userDto.getId())
+                                .header("Authorization", "Bearer " + refreshToken)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void getUserByIdWithInvalidId() throws Exception {
 
@@ -123,6 +282,40 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getUsersByIdsSuccessfully() throws Exception {
+
+        UserBatchRequestDto requestDto = UserBatchRequestDto.builder().ids(List.of(1L, 2L, 9L)).build();
+        when(userService.findUsersByIds(requestDto.getIds())).thenReturn(UserBatchDto.builder()
+                .users(List.of(getUserDto(1), getUserDto(2)))
+                .missingIds(List.of(9L))
+                .build());
+
+        mockMvc.perform(
+                        post("/internal/user/batch")
+                                .content(objectMapper.writeValueAsString(requestDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.missingIds[0]").value(9));
+    }
+
+    @Test
+    void getUsersByIdsWithEmptyIds() throws Exception {
+
+        UserBatchRequestDto requestDto = UserBatchRequestDto.builder().ids(List.of()).build();
+
+        mockMvc.perform(
+                        post("/internal/user/batch")
+                                .content(objectMapper.writeValueAsString(requestDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updateUserSuccessfully() throws Exception {
 
@@ -171,12 +364,45 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void patchUserSuccessfully() throws Exception {
+
+        UserPatchDto patchDto = UserPatchDto.builder().city("Riga").build();
+
+        mockMvc.perform(
+                        patch("/user/{id}", 1L)
+                                .content(objectMapper.writeValueAsString(patchDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isNoContent())
+                .andExpect(header().exists("Location"));
+
+        verify(userService, times(1)).patchUser(1L, patchDto);
+    }
+
+    @Test
+    void patchUserOfOtherUser() throws Exception {
+
+        UserPatchDto patchDto = UserPatchDto.builder().city("Riga").build();
+
+        mockMvc.perform(
+                        patch("/user/{id}", 2L)
+                                .content(objectMapper.writeValueAsString(patchDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void deleteUserSuccessfully() throws Exception {
         UserDto userDto = getUserDto(1);
 
         mockMvc.perform(
-                        delete("/user/{id}", userDto.getId())
+                        delete("/internal/user/{id}", userDto.getId())
                                 .header("Authorization", "Bearer " + jwtToken)
                                 .accept(MediaType.APPLICATION_JSON)
                 )
@@ -189,10 +415,144 @@ class UserControllerTest {
     void deleteUserWithInvalidId() throws Exception {
 
         mockMvc.perform(
-                        delete("/user/{id}", 0L)
+                        delete("/internal/user/{id}", 0L)
                                 .header("Authorization", "Bearer " + jwtToken)
                                 .accept(MediaType.APPLICATION_JSON)
                 )
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void deleteUsersByIdsSuccessfully() throws Exception {
+        UserDeleteBatchRequestDto requestDto = new UserDeleteBatchRequestDto(List.of(1L, 4L));
+        UserDeleteBatchDto resultDto = UserDeleteBatchDto.builder()
+                .deletedIds(List.of(1L))
+                .missingIds(List.of(4L))
+                .build();
+        when(userService.deleteUsersByIds(requestDto.getIds())).thenReturn(resultDto);
+
+        mockMvc.perform(
+                        post("/internal/user/delete-batch")
+                                .header("Authorization", "Bearer " + adminJwtToken)
+                                .content(objectMapper.writeValueAsString(requestDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedIds[0]").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(4));
+    }
+
+    @Test
+    void deleteUsersByIdsWithoutCredentials() throws Exception {
+        UserDeleteBatchRequestDto requestDto = new UserDeleteBatchRequestDto(List.of(1L, 4L));
+
+        mockMvc.perform(
+                        post("/internal/user/delete-batch")
+                                .content(objectMapper.writeValueAsString(requestDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+        verify(userService, times(0)).deleteUsersByIds(anyList());
+    }
+
+    @Test
+    void deleteUsersByIdsAsRegularUser() throws Exception {
+        UserDeleteBatchRequestDto requestDto = new UserDeleteBatchRequestDto(List.of(1L, 4L));
+
+        mockMvc.perform(
+                        post("/internal/user/delete-batch")
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .content(objectMapper.writeValueAsString(requestDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+        verify(userService, times(0)).deleteUsersByIds(anyList());
+    }
+
+    @Test
+    void importUsersSuccessfully() throws Exception {
+        when(userImportService.importUsers(any(InputStream.class))).thenReturn(UserImportResultDto.builder()
+                .imported(1)
+                .failed(0)
+                .errors(List.of())
+                .build());
+
+        mockMvc.perform(
+                        post("/internal/user/import")
+                                .header("Authorization", "Bearer " + adminJwtToken)
+                                .content("{\"username\":\"user1\",\"email\":\"1@email.com\",\"password\":\"password1\"}\n")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    void importUsersWithoutCredentials() throws Exception {
+        mockMvc.perform(
+                        post("/internal/user/import")
+                                .content("{\"username\":\"user1\",\"email\":\"1@email.com\",\"passwordHash\":\"$2a$10$x\"}\n")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+        verify(userImportService, times(0)).importUsers(any(InputStream.class));
+    }
+
+    @Test
+    void importUsersAsRegularUser() throws Exception {
+        mockMvc.perform(
+                        post("/internal/user/import")
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .content("{\"username\":\"user1\",\"email\":\"1@email.com\",\"passwordHash\":\"$2a$10$x\"}\n")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isForbidden());
+        verify(userImportService, times(0)).importUsers(any(InputStream.class));
+    }
+
+    @Test
+    void getUserChangesReturnsAvailableChangesWithoutWaiting() throws Exception {
+        when(userChangeFeedService.findChanges("MTA", 50)).thenReturn(UserChangesDto.builder()
+                .changes(List.of(UserChangeDto.builder()
+                        .userId(1L)
+                        .type(UserChangeType.UPSERT)
+                        .user(getUserDto(1))
+                        .build()))
+                .nextCursor("MTE")
+                .build());
+
+        MvcResult mvcResult = mockMvc.perform(
+                        get("/internal/user/changes")
+                                .param("since", "MTA")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].userId").value(1))
+                .andExpect(jsonPath("$.changes[0].type").value("UPSERT"))
+                .andExpect(jsonPath("$.nextCursor").value("MTE"));
+        verify(userChangeFeedService, times(0)).awaitChanges(anyString(), anyInt());
+    }
+
+    @Test
+    void getUserChangesWithExpiredCursor() throws Exception {
+        when(userChangeFeedService.findChanges("MQ", 50))
+                .thenThrow(new ChangeCursorExpiredException("Changes after this cursor are compacted"));
+
+        mockMvc.perform(
+                        get("/internal/user/changes")
+                                .param("since", "MQ")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isGone());
+    }
 }
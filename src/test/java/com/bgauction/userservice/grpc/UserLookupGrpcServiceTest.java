@@ -0,0 +1,214 @@
+package com.bgauction.userservice.grpc;
+
+import com.bgauction.userservice.exception.NotFoundException;
+import com.bgauction.userservice.grpc.proto.BatchGetUsersRequest;
+import com.bgauction.userservice.grpc.proto.BatchGetUsersResponse;
+import com.bgauction.userservice.grpc.proto.GetUserRequest;
+import com.bgauction.userservice.grpc.proto.ListUsersRequest;
+import com.bgauction.userservice.grpc.proto.User;
+import com.bgauction.userservice.grpc.proto.UserLookupGrpc;
+import com.bgauction.userservice.model.dto.CursorPageDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.service.UserService;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bgauction.userservice.util.CreateObjectsForTests.getUserDto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exercises the service through an in-process transport, with the same interceptors as the real server
+ * but without any network.
+ */
+class UserLookupGrpcServiceTest {
+
+    private static final String SERVICE_KEY = "test-service-key";
+
+    private UserService userService;
+    private ExecutorService serverExecutor;
+    private Server server;
+    private ManagedChannel channel;
+    private UserLookupGrpc.UserLookupBlockingStub stub;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userService = mock(UserService.class);
+        // a single application thread, so a call that never gives its thread back blocks every later call
+        serverExecutor = Executors.newSingleThreadExecutor();
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .executor(serverExecutor)
+                .addService(ServerInterceptors.intercept(new UserLookupGrpcService(userService, 2, 500),
+                        new ServiceKeyInterceptor(SERVICE_KEY)))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        stub = withServiceKey(UserLookupGrpc.newBlockingStub(channel), SERVICE_KEY);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void getUserReturnsUser() {
+        when(userService.findUserById(1L)).thenReturn(getUserDto(1));
+
+        User user = stub.getUser(GetUserRequest.newBuilder().setId(1L).build());
+
+        assertThat(user.getId()).isEqualTo(1L);
+        assertThat(user.getEmail()).isEqualTo("1@email.com");
+        assertThat(user.getCountry()).isEqualTo("country1");
+    }
+
+    @Test
+    void getUserLeavesMissingOptionalFieldsUnset() {
+        when(userService.findUserById(1L)).thenReturn(UserDto.builder()
+                .id(1L).username("username1").email("1@email.com").build());
+
+        User user = stub.getUser(GetUserRequest.newBuilder().setId(1L).build());
+
+        assertThat(user.hasCountry()).isFalse();
+        assertThat(user.hasDeliveryInfo()).isFalse();
+    }
+
+    @Test
+    void getUserNotFound() {
+        when(userService.findUserById(anyLong())).thenThrow(new NotFoundException("User with id: 5 is not found"));
+
+        StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetUserRequest.newBuilder().setId(5L).build()));
+
+        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND);
+    }
+
+    @Test
+    void getUserRejectsInvalidId() {
+        StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetUserRequest.newBuilder().setId(0L).build()));
+
+        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void callWithoutServiceKeyIsDenied() {
+        UserLookupGrpc.UserLookupBlockingStub wrongKey =
+                withServiceKey(UserLookupGrpc.newBlockingStub(channel), "wrong-key");
+
+        StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+                () -> wrongKey.getUser(GetUserRequest.newBuilder().setId(1L).build()));
+
+        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.PERMISSION_DENIED);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void batchGetUsersReturnsFoundAndMissing() {
+        when(userService.findUsersByIds(anyCollection())).thenReturn(UserBatchDto.builder()
+                .users(List.of(getUserDto(1), getUserDto(2)))
+                .missingIds(List.of(3L))
+                .build());
+
+        BatchGetUsersResponse response = stub.batchGetUsers(BatchGetUsersRequest.newBuilder()
+                .addAllIds(List.of(1L, 2L, 3L))
+                .build());
+
+        assertThat(response.getUsersList()).extracting(User::getId).containsExactly(1L, 2L);
+        assertThat(response.getMissingIdsList()).containsExactly(3L);
+    }
+
+    @Test
+    void batchGetUsersRejectsTooManyIds() {
+        BatchGetUsersRequest.Builder request = BatchGetUsersRequest.newBuilder();
+        for (long id = 1; id <= UserLookupGrpcService.MAX_BATCH_SIZE + 1; id++) {
+            request.addIds(id);
+        }
+
+        StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+                () -> stub.batchGetUsers(request.build()));
+
+        assertThat(ex.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    @Test
+    void listUsersStreamsAllPages() {
+        when(userService.findUsersPage(eq(""), anyInt())).thenReturn(CursorPageDto.<UserDto>builder()
+                .items(List.of(getUserDto(1), getUserDto(2)))
+                .nextCursor("Mg")
+                .build());
+        when(userService.findUsersPage(eq("Mg"), anyInt())).thenReturn(CursorPageDto.<UserDto>builder()
+                .items(List.of(getUserDto(3)))
+                .build());
+
+        List<Long> ids = new ArrayList<>();
+        stub.listUsers(ListUsersRequest.getDefaultInstance()).forEachRemaining(user -> ids.add(user.getId()));
+
+        assertThat(ids).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void listUsersStopsWhenClientCancels() throws Exception {
+        AtomicInteger pagesRead = new AtomicInteger();
+        when(userService.findUsersPage(anyString(), anyInt())).thenAnswer(invocation -> {
+            pagesRead.incrementAndGet();
+            return CursorPageDto.<UserDto>builder()
+                    .items(List.of(getUserDto(1), getUserDto(2)))
+                    .nextCursor("Mg")
+                    .build();
+        });
+        when(userService.findUserById(1L)).thenReturn(getUserDto(1));
+
+        Context.CancellableContext context = Context.current().withCancellation();
+        Iterator<User> users = context.call(() -> stub.listUsers(ListUsersRequest.getDefaultInstance()));
+        assertThat(users.next().getId()).isEqualTo(1L);
+        assertThat(users.next().getId()).isEqualTo(2L);
+        context.cancel(null);
+
+        // the endless stream must have released the only server thread
+        User user = stub.withDeadlineAfter(5, TimeUnit.SECONDS).getUser(GetUserRequest.newBuilder().setId(1L).build());
+        assertThat(user.getId()).isEqualTo(1L);
+        int pagesAfterCancel = pagesRead.get();
+        Thread.sleep(200);
+        assertThat(pagesRead.get()).isEqualTo(pagesAfterCancel);
+    }
+
+    private static UserLookupGrpc.UserLookupBlockingStub withServiceKey(UserLookupGrpc.UserLookupBlockingStub stub,
+                                                                        String serviceKey) {
+        Metadata headers = new Metadata();
+        headers.put(ServiceKeyInterceptor.SERVICE_KEY, serviceKey);
+        return stub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+}
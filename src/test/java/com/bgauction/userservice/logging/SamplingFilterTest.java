@@ -0,0 +1,45 @@
+package com.bgauction.userservice.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SamplingFilterTest {
+
+    private final SamplingFilter filter = SamplingFilter.createFilter("USER_LOOKUP", "INFO", 10, null, null);
+
+    @Test
+    void keepsRoughlyOneInRateOfMarkedEvents() {
+        int kept = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.filter(null, Level.INFO, LogMarkers.USER_LOOKUP, "User found: id={}", i)
+                    == Filter.Result.NEUTRAL) {
+                kept++;
+            }
+        }
+        assertThat(kept).isBetween(9_000, 11_000);
+    }
+
+    @Test
+    void leavesOtherEventsToOtherFilters() {
+        assertThat(filter.filter(null, Level.INFO, null, "User saved: id={}", 1L))
+                .isEqualTo(Filter.Result.NEUTRAL);
+        assertThat(filter.filter(null, Level.INFO, LogMarkers.USER_LIST, "Users found", 1L))
+                .isEqualTo(Filter.Result.NEUTRAL);
+        for (int i = 0; i < 100; i++) {
+            assertThat(filter.filter(null, Level.WARN, LogMarkers.USER_LOOKUP, "User is not found", 1L))
+                    .isEqualTo(Filter.Result.NEUTRAL);
+        }
+    }
+
+    @Test
+    void rateOfOneKeepsEverything() {
+        SamplingFilter keepAll = SamplingFilter.createFilter("USER_LOOKUP", "INFO", 1, null, null);
+        for (int i = 0; i < 100; i++) {
+            assertThat(keepAll.filter(null, Level.DEBUG, LogMarkers.USER_LOOKUP, "User found: id={}", i))
+                    .isEqualTo(Filter.Result.NEUTRAL);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bgauction.userservice.security;
+
+import com.bgauction.userservice.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void encodesAndMatchesOnWorkerThreads() {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1,
+                Duration.ofSeconds(1), new SimpleMeterRegistry())) {
+            String encoded = encoder.encode("password1");
+            assertThat(encoder.matches("password1", encoded)).isTrue();
+            assertThat(encoder.matches("password2", encoded)).isFalse();
+        }
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1,
+                Duration.ofSeconds(2), meterRegistry)) {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (meterRegistry.get("password.encoder.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class, () -> encoder.encode("c"));
+            assertThat(ex.getRetryAfterSeconds()).isEqualTo(2);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bgauction.userservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalibratedBCryptPasswordEncoderTest {
+
+    @Test
+    void calibrateStaysWithinBounds() {
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(Duration.ofNanos(1), 5, 7).getStrength())
+                .isEqualTo(5);
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(Duration.ofHours(1), 5, 7).getStrength())
+                .isEqualTo(7);
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(Duration.ofMillis(50), 4, 12).getStrength())
+                .isBetween(4, 12);
+    }
+
+    @Test
+    void calibratedStrengthIsUsedForEncoding() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        String encoded = encoder.encode("password1");
+
+        assertThat(encoded).startsWith("$2a$05$");
+        assertThat(encoder.matches("password1", encoded)).isTrue();
+    }
+
+    @Test
+    void upgradeEncodingOnlyForWeakerHashes() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password1"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password1"))).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password1"))).isFalse();
+        assertThat(encoder.upgradeEncoding("{noop}password1")).isFalse();
+        assertThat(encoder.upgradeEncoding("")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+}
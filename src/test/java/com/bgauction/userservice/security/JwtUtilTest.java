@@ -0,0 +1,54 @@
+package com.bgauction.userservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "your-secure-secret-key-which-is-at-least-32-characters-long";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, Duration.ofDays(1), Duration.ofDays(14));
+
+    @Test
+    void generateTokenMatchesJjwtBuilderOutput() {
+        long now = 1_700_000_000_123L;
+        assertThat(jwtUtil.generateToken(1L, "1@email.com", "USER", now))
+                .isEqualTo(jwtUtil.generateTokenWithBuilder(1L, "1@email.com", "USER", now));
+        String email = "\"\u00e4\\\u00f6\"\t\ud83d\ude00@email.com";
+        assertThat(jwtUtil.generateToken(42L, email, "ADMIN", now))
+                .isEqualTo(jwtUtil.generateTokenWithBuilder(42L, email, "ADMIN", now));
+    }
+
+    @Test
+    void generateTokenIsVerifiableByJjwt() {
+        String token = jwtUtil.generateToken(7L, "7@email.com", "USER");
+
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        assertThat(claims.getSubject()).isEqualTo("7");
+        assertThat(claims.get("email", String.class)).isEqualTo("7@email.com");
+        assertThat(claims.get("role", String.class)).isEqualTo("USER");
+        assertThat(claims.getExpiration()).isAfter(claims.getIssuedAt());
+    }
+
+    @Test
+    void generateTokenIsTimed() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtUtil timedJwtUtil = new JwtUtil(SECRET, Duration.ofDays(1), Duration.ofDays(14), meterRegistry);
+
+        timedJwtUtil.generateToken(7L, "7@email.com", "USER");
+        timedJwtUtil.generateToken(8L, "8@email.com", "USER");
+
+        assertThat(meterRegistry.get("jwt.issue").timer().count()).isEqualTo(2);
+    }
+}
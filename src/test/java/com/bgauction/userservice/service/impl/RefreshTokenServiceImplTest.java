@@ -0,0 +1,94 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.exception.InvalidTokenException;
+import com.bgauction.userservice.model.dto.RegisterUserDto;
+import com.bgauction.userservice.model.entity.RevokedToken;
+import com.bgauction.userservice.repository.RevokedTokenRepository;
+import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.security.JwtUtil;
+import com.bgauction.userservice.security.UserDetailsImpl;
+import com.bgauction.userservice.service.UserService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static com.bgauction.userservice.util.CreateObjectsForTests.getRegisterUserDto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "grpc.server.port=0")
+@Transactional
+class RefreshTokenServiceImplTest {
+
+    @Autowired
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void refreshAccessTokenSuccessfully() {
+        UserDetailsImpl user = saveUser();
+        String refreshToken = refreshTokenService.issueRefreshToken(user);
+
+        String accessToken = refreshTokenService.refreshAccessToken(refreshToken);
+        Claims claims = jwtUtil.parseToken(accessToken);
+        assertThat(claims.getSubject()).isEqualTo(user.getId().toString());
+        assertThat(claims.get("role", String.class)).isEqualTo("USER");
+    }
+
+    @Test
+    void refreshAccessTokenWithRevokedToken() {
+        UserDetailsImpl user = saveUser();
+        String refreshToken = refreshTokenService.issueRefreshToken(user);
+        refreshTokenService.revoke(refreshToken);
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refreshAccessToken(refreshToken));
+    }
+
+    @Test
+    void refreshAccessTokenRevokedByAnotherInstance() {
+        UserDetailsImpl user = saveUser();
+        String refreshToken = refreshTokenService.issueRefreshToken(user);
+        Claims claims = jwtUtil.parseToken(refreshToken);
+        revokedTokenRepository.saveAndFlush(new RevokedToken(claims.getId(), LocalDateTime.now(),
+                LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault())));
+
+        refreshTokenService.syncRevocations();
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refreshAccessToken(refreshToken));
+    }
+
+    @Test
+    void refreshAccessTokenWithAccessToken() {
+        UserDetailsImpl user = saveUser();
+        String accessToken = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refreshAccessToken(accessToken));
+    }
+
+    private UserDetailsImpl saveUser() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+        return (UserDetailsImpl) userDetailsService.loadUserByUsername(registerUserDto.getEmail());
+    }
+}
@@ -0,0 +1,139 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.exception.ChangeCursorExpiredException;
+import com.bgauction.userservice.model.dto.UserChangeDto;
+import com.bgauction.userservice.model.dto.UserChangesDto;
+import com.bgauction.userservice.model.entity.Role;
+import com.bgauction.userservice.model.entity.User;
+import com.bgauction.userservice.model.entity.UserChange;
+import com.bgauction.userservice.model.entity.UserChangeType;
+import com.bgauction.userservice.repository.UserChangeRepository;
+import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.util.CursorUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "grpc.server.port=0")
+@Transactional
+class UserChangeFeedServiceImplTest {
+
+    @Autowired
+    private UserChangeFeedServiceImpl userChangeFeedService;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        // explicit ids well past the sequence, so the tests control the gaps
+        base = userChangeRepository.findLastId().orElse(0L) + 1000;
+    }
+
+    @Test
+    void changesAreCollapsedToTheLatestPerUser() {
+        User user = saveUser("feed1@email.com");
+        LocalDateTime settled = LocalDateTime.now().minusMinutes(5);
+        insertChange(base + 1, user.getId(), UserChangeType.UPSERT, settled);
+        insertChange(base + 2, 999_999L, UserChangeType.DELETE, settled);
+        insertChange(base + 3, user.getId(), UserChangeType.UPSERT, settled);
+
+        UserChangesDto result = userChangeFeedService.findChanges(CursorUtils.encode(base), 50);
+
+        assertThat(result.getChanges()).extracting(UserChangeDto::getUserId).containsExactly(999_999L, user.getId());
+        assertThat(result.getChanges()).extracting(UserChangeDto::getType)
+                .containsExactly(UserChangeType.DELETE, UserChangeType.UPSERT);
+        assertThat(result.getChanges().get(1).getUser().getEmail()).isEqualTo("feed1@email.com");
+        assertThat(result.getNextCursor()).isEqualTo(CursorUtils.encode(base + 3));
+    }
+
+    @Test
+    void upsertOfDeletedUserIsReportedAsDelete() {
+        insertChange(base + 1, 999_999L, UserChangeType.UPSERT, LocalDateTime.now().minusMinutes(5));
+
+        UserChangesDto result = userChangeFeedService.findChanges(CursorUtils.encode(base), 50);
+
+        assertThat(result.getChanges()).singleElement().satisfies(change -> {
+            assertThat(change.getType()).isEqualTo(UserChangeType.DELETE);
+            assertThat(change.getUser()).isNull();
+        });
+    }
+
+    @Test
+    void pageStopsBeforeGapThatMayStillCommit() {
+        insertChange(base + 1, 1L, UserChangeType.UPSERT, LocalDateTime.now().minusMinutes(5));
+        insertChange(base + 3, 2L, UserChangeType.UPSERT, LocalDateTime.now());
+
+        UserChangesDto result = userChangeFeedService.findChanges(CursorUtils.encode(base), 50);
+
+        assertThat(result.getChanges()).extracting(UserChangeDto::getUserId).containsExactly(1L);
+        assertThat(result.getNextCursor()).isEqualTo(CursorUtils.encode(base + 1));
+    }
+
+    @Test
+    void cursorBeforeCompactedChangesIsExpired() {
+        insertChange(base + 10, 1L, UserChangeType.UPSERT, LocalDateTime.now().minusDays(30));
+
+        assertThrows(ChangeCursorExpiredException.class,
+                () -> userChangeFeedService.findChanges(CursorUtils.encode(base), 50));
+    }
+
+    @Test
+    void compactionKeepsNewestExpiredChange() {
+        LocalDateTime expired = LocalDateTime.now().minusDays(30);
+        insertChange(base + 1, 1L, UserChangeType.UPSERT, expired);
+        insertChange(base + 2, 1L, UserChangeType.UPSERT, expired);
+        insertChange(base + 3, 1L, UserChangeType.DELETE, expired);
+        insertChange(base + 4, 2L, UserChangeType.UPSERT, LocalDateTime.now());
+
+        userChangeFeedService.compactChanges();
+
+        assertThat(userChangeRepository.findByIdGreaterThanOrderByIdAsc(base, Limit.unlimited()))
+                .extracting(UserChange::getId)
+                .containsExactly(base + 3, base + 4);
+    }
+
+    @Test
+    void startingCursorSkipsUnsettledChanges() {
+        insertChange(base + 1, 1L, UserChangeType.UPSERT, LocalDateTime.now().minusMinutes(5));
+        insertChange(base + 2, 2L, UserChangeType.UPSERT, LocalDateTime.now());
+
+        UserChangesDto result = userChangeFeedService.findChanges(null, 50);
+
+        assertThat(result.getChanges()).isEmpty();
+        assertThat(result.getNextCursor()).isEqualTo(CursorUtils.encode(base + 1));
+    }
+
+    private User saveUser(String email) {
+        return userRepository.save(User.builder()
+                .username("feeduser")
+                .password("password")
+                .email(email)
+                .enabled(true)
+                .role(Role.USER)
+                .build());
+    }
+
+    private void insertChange(long id, long userId, UserChangeType type, LocalDateTime changedAt) {
+        jdbcTemplate.update("INSERT INTO user_changes (id, user_id, change_type, changed_at) VALUES (?, ?, ?, ?)",
+                id, userId, type.name(), Timestamp.valueOf(changedAt));
+    }
+}
@@ -1,21 +1,30 @@
 package com.bgauction.userservice.service.impl;
 
+import com.bgauction.userservice.config.CacheConfig;
 import com.bgauction.userservice.exception.NotFoundException;
 import com.bgauction.userservice.model.dto.RegisterUserDto;
+import com.bgauction.userservice.model.dto.UserDto;
 import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.security.BoundedPasswordEncoder;
+import com.bgauction.userservice.security.CalibratedBCryptPasswordEncoder;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import static com.bgauction.userservice.util.CreateObjectsForTests.getRegisterUserDto;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@SpringBootTest
+@SpringBootTest(properties = "grpc.server.port=0")
 @Transactional
 class UserDetailsServiceImplTest {
 
@@ -31,6 +40,12 @@ class UserDetailsServiceImplTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
     @Test
     void loadUserByUsernameSuccessfully() {
         RegisterUserDto registerUserDto = getRegisterUserDto();
@@ -44,10 +59,46 @@ class UserDetailsServiceImplTest {
         assertThat(passwordEncoder.matches(registerUserDto.getPassword(), userDetails.getPassword())).isTrue();
     }
 
+    @Test
+    void loadUserByUsernameIsCachedByNormalizedEmail() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+        UserDetails loaded = userDetailsService.loadUserByUsername(registerUserDto.getEmail());
+        UserDetails cached = userDetailsService.loadUserByUsername(" " + registerUserDto.getEmail().toUpperCase());
+        assertThat(cached).isSameAs(loaded);
+        assertThat(cacheManager.getCache(CacheConfig.PRINCIPALS_CACHE).get(registerUserDto.getEmail())).isNotNull();
+    }
+
     @Test
     void loadUserByUsernameUnsuccessfully() {
         assertThrows(NotFoundException.class, () -> {
             userDetailsService.loadUserByUsername("");
         });
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void loginWithWeakerHashReEncodesItAndEvictsPrincipal() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto saved = userService.saveNewUser(registerUserDto);
+        String weakHash = new BCryptPasswordEncoder(4).encode(registerUserDto.getPassword());
+        userRepository.updatePassword(saved.getId(), weakHash);
+        // other tests roll back their users but leave principals cached under the same email
+        cacheManager.getCache(CacheConfig.PRINCIPALS_CACHE).evict(registerUserDto.getEmail());
+        userDetailsService.loadUserByUsername(registerUserDto.getEmail());
+        assertThat(cacheManager.getCache(CacheConfig.PRINCIPALS_CACHE).get(registerUserDto.getEmail())).isNotNull();
+
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(
+                registerUserDto.getEmail(), registerUserDto.getPassword()));
+
+        int strength = ((CalibratedBCryptPasswordEncoder) ((BoundedPasswordEncoder) passwordEncoder).getDelegate())
+                .getStrength();
+        String rehashed = userRepository.findByEmail(registerUserDto.getEmail()).get().getPassword();
+        assertThat(rehashed).startsWith("$2a$%02d$".formatted(strength));
+        assertThat(passwordEncoder.matches(registerUserDto.getPassword(), rehashed)).isTrue();
+        assertThat(cacheManager.getCache(CacheConfig.PRINCIPALS_CACHE).get(registerUserDto.getEmail())).isNull();
+
+        userService.deleteUserById(saved.getId(), saved.getEmail());
+    }
 }
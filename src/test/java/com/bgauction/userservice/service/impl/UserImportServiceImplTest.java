@@ -0,0 +1,77 @@
+package com.bgauction.userservice.service.impl;
+
+import com.bgauction.userservice.model.dto.UserImportErrorDto;
+import com.bgauction.userservice.model.dto.UserImportResultDto;
+import com.bgauction.userservice.model.entity.User;
+import com.bgauction.userservice.repository.UserRepository;
+import com.bgauction.userservice.service.UserImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "grpc.server.port=0")
+@Transactional
+class UserImportServiceImplTest {
+
+    private static final String BCRYPT_HASH = "$2a$10$Lb9/ALyCj7iMVL7y3ojT4uvjVfcYffDwcBz6V2uTc912epmefzQIm";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void importUsersReportsInvalidLinesAndKeepsGoing() throws Exception {
+        String ndjson = """
+                {"username":"imported1","email":"imported1@email.com","password":"password1","city":"Riga"}
+                {"username":"imported2","email":"imported2@email.com","passwordHash":"%s"}
+                not json
+                {"username":"x","email":"imported3@email.com","password":"password3"}
+                {"username":"imported4","email":"John.Doe@example.com","password":"password4"}
+                {"username":"imported5","email":"imported1@email.com","password":"password5"}
+                """.formatted(BCRYPT_HASH);
+
+        UserImportResultDto result = userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getErrors()).extracting(UserImportErrorDto::getLine).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(result.isErrorsTruncated()).isFalse();
+
+        User imported = userRepository.findByEmail("imported1@email.com").get();
+        assertThat(imported.getCity()).isEqualTo("Riga");
+        assertThat(imported.getEnabled()).isTrue();
+        assertThat(passwordEncoder.matches("password1", imported.getPassword())).isTrue();
+        assertThat(userRepository.findByEmail("imported2@email.com").get().getPassword()).isEqualTo(BCRYPT_HASH);
+    }
+
+    @Test
+    void importUsersRejectsHashCostOutsideConfiguredStrengths() throws Exception {
+        String ndjson = """
+                {"username":"imported6","email":"imported6@email.com","passwordHash":"%s"}
+                {"username":"imported7","email":"imported7@email.com","passwordHash":"%s"}
+                {"username":"imported8","email":"imported8@email.com","passwordHash":"%s"}
+                """.formatted(BCRYPT_HASH.replace("$10$", "$99$"), BCRYPT_HASH.replace("$10$", "$04$"),
+                BCRYPT_HASH.replace("$10$", "$31$"));
+
+        UserImportResultDto result = userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported()).isZero();
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(UserImportErrorDto::getLine).containsExactly(1L, 2L, 3L);
+        assertThat(userRepository.findByEmail("imported6@email.com")).isEmpty();
+    }
+}
@@ -1,19 +1,37 @@
 package com.bgauction.userservice.service.impl;
 
+import com.bgauction.userservice.config.CacheConfig;
+import com.bgauction.userservice.exception.EmailAlreadyUsedException;
 import com.bgauction.userservice.exception.NotFoundException;
+import com.bgauction.userservice.model.dto.CursorPageDto;
 import com.bgauction.userservice.model.dto.RegisterUserDto;
+import com.bgauction.userservice.model.dto.UserBatchDto;
+import com.bgauction.userservice.model.dto.UserDeleteBatchDto;
 import com.bgauction.userservice.model.dto.UserDto;
+import com.bgauction.userservice.model.dto.UserPatchDto;
+import com.bgauction.userservice.model.dto.UserSummaryDto;
 import com.bgauction.userservice.model.entity.Role;
 import com.bgauction.userservice.model.entity.User;
+import com.bgauction.userservice.model.entity.UserChange;
+import com.bgauction.userservice.model.entity.UserChangeType;
+import com.bgauction.userservice.repository.UserChangeRepository;
 import com.bgauction.userservice.repository.UserRepository;
 import com.bgauction.userservice.service.UserService;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,8 +40,10 @@ import static com.bgauction.userservice.util.CreateObjectsForTests.getRegisterUs
 import static com.bgauction.userservice.util.CreateObjectsForTests.getUserDtoWithoutId;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
 
-@SpringBootTest
+@SpringBootTest(properties = "grpc.server.port=0")
 @Transactional
 class UserServiceImplTest {
 
@@ -33,9 +53,21 @@ class UserServiceImplTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Autowired
+    @SpyBean
     private UserRepository userRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     void findUserByIdSuccessfully() {
         RegisterUserDto registerUserDto = getRegisterUserDto();
@@ -45,6 +77,53 @@ class UserServiceImplTest {
         assertThat(expected).isEqualTo(result);
     }
 
+    @Test
+    void findUserByIdIsCachedUntilUpdate() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto saved = userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+        userService.findUserById(saved.getId());
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(saved.getId())).isNotNull();
+
+        UserDto forUpdateDto = getUserDtoWithoutId();
+        forUpdateDto.setId(saved.getId());
+        forUpdateDto.setCity("Riga");
+        userService.updateUser(forUpdateDto);
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(saved.getId())).isNull();
+    }
+
+    @Test
+    void findUsersByIdsReportsMissingIds() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto saved = userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+        userService.findUserById(saved.getId());
+
+        UserBatchDto result = userService.findUsersByIds(List.of(saved.getId(), 1L, Long.MAX_VALUE));
+        assertThat(result.getUsers()).extracting(UserDto::getId).containsExactly(saved.getId(), 1L);
+        assertThat(result.getMissingIds()).containsExactly(Long.MAX_VALUE);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findUsersByIdsDoesNotCacheRowDeletedDuringLoad() {
+        UserDto saved = userService.saveNewUser(getRegisterUserDto());
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        doAnswer(invocation -> {
+            Object loaded = invocation.callRealMethod();
+            // the delete commits after the row is read, but before it is put into the cache
+            newTransaction.executeWithoutResult(status -> userService.deleteUserById(saved.getId(), saved.getEmail()));
+            return loaded;
+        }).when(userRepository).findViewsByIdIn(anyCollection());
+
+        UserBatchDto result = userService.findUsersByIds(List.of(saved.getId()));
+
+        assertThat(result.getUsers()).extracting(UserDto::getId).containsExactly(saved.getId());
+        assertThat(userRepository.existsById(saved.getId())).isFalse();
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(saved.getId())).isNull();
+    }
+
     @Test
     void userNotFoundById() {
         assertThrows(NotFoundException.class, () -> {
@@ -78,6 +157,16 @@ class UserServiceImplTest {
         });
     }
 
+    @Test
+    void saveNewUserWithUsedEmail() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        registerUserDto.setEmail(" John.Doe@example.com");
+
+        assertThrows(EmailAlreadyUsedException.class, () -> {
+            userService.saveNewUser(registerUserDto);
+        });
+    }
+
     @Test
     void updateUserSuccessfully() throws InterruptedException {
         RegisterUserDto registerUserDto = getRegisterUserDto();
@@ -102,6 +191,49 @@ class UserServiceImplTest {
         assertThat(updatedUser.getUpdated()).isAfter(updateTime);
     }
 
+    @Test
+    void patchUserChangesOnlySuppliedFields() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto savedDto = userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+        Long id = savedDto.getId();
+        String password = userRepository.findById(id).get().getPassword();
+        entityManager.clear();
+
+        userService.patchUser(id, UserPatchDto.builder().city("Riga").build());
+        entityManager.clear();
+
+        User patchedUser = userRepository.findById(id).get();
+        assertThat(patchedUser.getCity()).isEqualTo("Riga");
+        assertThat(patchedUser.getUsername()).isEqualTo(registerUserDto.getUsername());
+        assertThat(patchedUser.getEmail()).isEqualTo(registerUserDto.getEmail());
+        assertThat(patchedUser.getPassword()).isEqualTo(password);
+        assertThat(patchedUser.getEnabled()).isEqualTo(true);
+        assertThat(patchedUser.getRole()).isEqualTo(Role.USER);
+    }
+
+    @Test
+    void findUserVersionIsCachedUntilPatch() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto saved = userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+
+        LocalDateTime version = userService.findUserVersion(saved.getId());
+        assertThat(version).isNotNull();
+        assertThat(cacheManager.getCache(CacheConfig.USER_VERSIONS_CACHE).get(saved.getId())).isNotNull();
+
+        userService.patchUser(saved.getId(), UserPatchDto.builder().city("Riga").build());
+        assertThat(cacheManager.getCache(CacheConfig.USER_VERSIONS_CACHE).get(saved.getId())).isNull();
+        assertThat(userService.findUserVersion(saved.getId())).isAfter(version);
+    }
+
+    @Test
+    void patchUserNotFound() {
+        assertThrows(NotFoundException.class, () -> {
+            userService.patchUser(Long.MAX_VALUE, UserPatchDto.builder().city("Riga").build());
+        });
+    }
+
     @Test
     void findAllUsersSuccessfully() {
         RegisterUserDto registerUserDto = getRegisterUserDto();
@@ -111,6 +243,37 @@ class UserServiceImplTest {
         assertThat(list.size()).isEqualTo(4);
     }
 
+    @Test
+    void findUsersPageFollowsCursor() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+
+        CursorPageDto<UserDto> first = userService.findUsersPage(null, 3);
+        assertThat(first.getItems()).hasSize(3);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        CursorPageDto<UserDto> second = userService.findUsersPage(first.getNextCursor(), 3);
+        assertThat(second.getItems()).hasSize(1);
+        assertThat(second.getItems().get(0).getId()).isGreaterThan(first.getItems().get(2).getId());
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchUsersFiltersByLocationAndEnabled() {
+        CursorPageDto<UserSummaryDto> enabledInUsa = userService.searchUsers("USA", null, true, null, 1);
+        assertThat(enabledInUsa.getItems()).extracting(UserSummaryDto::getCity).containsExactly("New York");
+        assertThat(enabledInUsa.getNextCursor()).isNotNull();
+
+        CursorPageDto<UserSummaryDto> next = userService.searchUsers("USA", null, true, enabledInUsa.getNextCursor(), 1);
+        assertThat(next.getItems()).extracting(UserSummaryDto::getCity).containsExactly("Los Angeles");
+        assertThat(next.getNextCursor()).isNull();
+
+        CursorPageDto<UserSummaryDto> disabledInChicago = userService.searchUsers("USA", "Chicago", false, null, 10);
+        assertThat(disabledInChicago.getItems()).extracting(UserSummaryDto::getUsername)
+                .containsExactly("alice_johnson");
+    }
+
     @Test
     void deleteUserByIdSuccessfully() {
         RegisterUserDto registerUserDto = getRegisterUserDto();
@@ -122,6 +285,20 @@ class UserServiceImplTest {
         assertThat(list.size()).isEqualTo(3);
     }
 
+    @Test
+    void saveAndDeleteAreRecordedAsChanges() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto saved = userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+        userService.deleteUserById(saved.getId(), saved.getEmail());
+        List<UserChangeType> changes = userChangeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.unlimited())
+                .stream()
+                .filter(change -> change.getUserId().equals(saved.getId()))
+                .map(UserChange::getChangeType)
+                .toList();
+        assertThat(changes).containsExactly(UserChangeType.UPSERT, UserChangeType.DELETE);
+    }
+
     @Test
     void deleteUserByIdWhenEmailIsInvalid() {
         RegisterUserDto registerUserDto = getRegisterUserDto();
@@ -132,4 +309,25 @@ class UserServiceImplTest {
             userService.deleteUserById(saved.getId(), "hre@mail.com");
         });
     }
+
+    @Test
+    void deleteUserByIdWhenUserIsNotFound() {
+        assertThrows(NotFoundException.class, () -> {
+            userService.deleteUserById(Long.MAX_VALUE, "1@email.com");
+        });
+    }
+
+    @Test
+    void deleteUsersByIdsReportsMissingIds() {
+        RegisterUserDto registerUserDto = getRegisterUserDto();
+        UserDto saved = userService.saveNewUser(registerUserDto);
+        userRepository.flush();
+
+        UserDeleteBatchDto result = userService.deleteUsersByIds(List.of(saved.getId(), Long.MAX_VALUE, saved.getId()));
+        userRepository.flush();
+
+        assertThat(result.getDeletedIds()).containsExactly(saved.getId());
+        assertThat(result.getMissingIds()).containsExactly(Long.MAX_VALUE);
+        assertThat(userRepository.existsById(saved.getId())).isFalse();
+    }
 }
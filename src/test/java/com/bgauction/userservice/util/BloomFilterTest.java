@@ -0,0 +1,35 @@
+package com.bgauction.userservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEveryAddedValue() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(i + "@email.com");
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain(i + "@email.com")).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(1000);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredProbability() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("present-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
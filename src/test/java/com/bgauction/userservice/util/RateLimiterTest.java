@@ -0,0 +1,53 @@
+package com.bgauction.userservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void allowsBurstThenRejectsWithWaitTime() {
+        RateLimiter limiter = new RateLimiter(60, 3, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        }
+        assertThat(limiter.tryAcquire("1.2.3.4")).isEqualTo(Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        RateLimiter limiter = new RateLimiter(60, 1, now::get);
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isPositive();
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+    }
+
+    @Test
+    void keysAreLimitedIndependently() {
+        RateLimiter limiter = new RateLimiter(60, 1, now::get);
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("5.6.7.8")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isPositive();
+    }
+
+    @Test
+    void evictsOnlyFullBuckets() {
+        RateLimiter limiter = new RateLimiter(60, 2, now::get);
+        limiter.tryAcquire("idle");
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        limiter.tryAcquire("active");
+
+        assertThat(limiter.evictIdle()).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("active")).isZero();
+        assertThat(limiter.tryAcquire("active")).isPositive();
+    }
+}